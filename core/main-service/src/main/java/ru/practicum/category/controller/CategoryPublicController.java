@@ -3,10 +3,13 @@ package ru.practicum.category.controller;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import ru.practicum.category.dto.CategoryDto;
 import ru.practicum.category.service.CategoryService;
+import ru.practicum.config.ETags;
 
 import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/categories")
@@ -16,8 +19,14 @@ public class CategoryPublicController {
     private final CategoryService categoryService;
 
     @GetMapping("/{id}")
-    public ResponseEntity<CategoryDto> getById(@PathVariable Long id) {
-        return ResponseEntity.ok(categoryService.getById(id));
+    public ResponseEntity<CategoryDto> getById(@PathVariable Long id, WebRequest webRequest) {
+        Optional<String> etag = categoryService.getVersion(id).map(version -> ETags.weak("c", id, version));
+        if (etag.isPresent() && webRequest.checkNotModified(etag.get())) {
+            return null;
+        }
+        CategoryDto category = categoryService.getById(id);
+        return etag.map(tag -> ResponseEntity.ok().eTag(tag).body(category))
+                .orElseGet(() -> ResponseEntity.ok(category));
     }
 
     @GetMapping
@@ -18,4 +18,7 @@ public class Category {
 
     @Column(nullable = false, unique = true)
     private String name;
+
+    @Version
+    private Long version;
 }
@@ -2,10 +2,15 @@ package ru.practicum.category.repository;
 
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import ru.practicum.category.model.Category;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface CategoryRepository extends JpaRepository<Category, Long> {
     List<Category> findByIdIn(List<Long> categoriesId, Pageable pageable);
+
+    @Query("SELECT c.version FROM Category c WHERE c.id = :categoryId")
+    Optional<Long> findVersionById(Long categoryId);
 }
@@ -4,6 +4,7 @@ import ru.practicum.category.dto.CategoryDto;
 import ru.practicum.category.dto.CategoryUpdateDto;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface CategoryService {
     CategoryDto createCategory(CategoryDto categoryDto);
@@ -17,4 +18,6 @@ public interface CategoryService {
     List<CategoryDto> getAllPaged(int from, int size);
 
     CategoryDto update(Long catId, CategoryUpdateDto dto);
+
+    Optional<Long> getVersion(Long id);
 }
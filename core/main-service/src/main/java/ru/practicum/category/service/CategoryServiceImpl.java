@@ -10,9 +10,11 @@ import ru.practicum.category.dto.CategoryUpdateDto;
 import ru.practicum.category.mapper.CategoryMapper;
 import ru.practicum.category.model.Category;
 import ru.practicum.category.repository.CategoryRepository;
+import ru.practicum.compilation.service.CompilationCache;
 import ru.practicum.exceptions.NotFoundException;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
@@ -21,6 +23,7 @@ import java.util.stream.Collectors;
 public class CategoryServiceImpl implements CategoryService {
 
     private final CategoryRepository categoryRepository;
+    private final CompilationCache compilationCache;
 
     @Override
     public CategoryDto createCategory(CategoryDto categoryDto) {
@@ -34,6 +37,8 @@ public class CategoryServiceImpl implements CategoryService {
                 .orElseThrow(() -> new NotFoundException("Категория не найдена: " + categoryId));
 
         category.setName(dto.getName());
+        // Название категории входит в закэшированные подборки
+        compilationCache.evictAll();
 
         return CategoryMapper.toDto(categoryRepository.save(category));
     }
@@ -60,6 +65,12 @@ public class CategoryServiceImpl implements CategoryService {
         return CategoryMapper.toDto(category);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Long> getVersion(Long categoryId) {
+        return categoryRepository.findVersionById(categoryId);
+    }
+
     @Override
     public void deleteById(Long categoryId) {
         Category category = categoryRepository.findById(categoryId)
@@ -3,7 +3,6 @@ package ru.practicum.comment.controller;
 import jakarta.validation.constraints.Positive;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
@@ -18,21 +17,28 @@ import java.util.List;
 @Validated
 public class AdminCommentController {
 
+    private static final String DELETED_COUNT_HEADER = "X-Deleted-Count";
+
     private final CommentService commentService;
 
+    // Ответ 204 без тела, число удалённых комментариев передаётся в заголовке
     @DeleteMapping
-    @ResponseStatus(HttpStatus.NO_CONTENT)
-    public ResponseEntity<String> deleteByIds(@RequestParam List<Long> ids) {
+    public ResponseEntity<Void> deleteByIds(@RequestParam List<Long> ids) {
         log.info("Запрос на удаление комментариев администратором");
-        commentService.deleteByIds(ids);
-        return ResponseEntity.status(HttpStatus.NO_CONTENT).body("Комметарии удалены: " + ids);
+        int deleted = commentService.deleteByIds(ids);
+        log.info("Комметарии удалены ({}): {}", deleted, ids);
+        return deletedResponse(deleted);
     }
 
     @DeleteMapping("/events/{eventId}")
-    @ResponseStatus(HttpStatus.NO_CONTENT)
-    public ResponseEntity<String> deleteByEventId(@PathVariable @Positive Long eventId) {
+    public ResponseEntity<Void> deleteByEventId(@PathVariable @Positive Long eventId) {
         log.info("Запрос на удаление всех комментариев у события с id = {}", eventId);
-        commentService.deleteByEventId(eventId);
-        return ResponseEntity.status(HttpStatus.NO_CONTENT).body("Удалены все комментарии у события с id: " + eventId);
+        int deleted = commentService.deleteByEventId(eventId);
+        log.info("Удалены все комментарии ({}) у события с id: {}", deleted, eventId);
+        return deletedResponse(deleted);
+    }
+
+    private ResponseEntity<Void> deletedResponse(int deleted) {
+        return ResponseEntity.noContent().header(DELETED_COUNT_HEADER, String.valueOf(deleted)).build();
     }
 }
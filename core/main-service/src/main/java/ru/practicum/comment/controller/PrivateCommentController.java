@@ -23,16 +23,17 @@ import java.util.List;
 public class PrivateCommentController {
 
     private final CommentService commentService;
-    private static final Sort DEFAULT_SORT = Sort.by(Sort.Direction.DESC, "created");
+    private static final Sort DEFAULT_SORT = Sort.by(Sort.Direction.DESC, "created", "id");
 
 
     @GetMapping("/events/{eventId}/comments")
     public ResponseEntity<List<CommentResponseDto>> findAll(@PathVariable @Positive Long userId,
                                                             @PathVariable @Positive Long eventId,
+                                                            @RequestParam(required = false) Long afterId,
                                                             @RequestParam(defaultValue = "0") int from,
                                                             @RequestParam(defaultValue = "10") int size) {
         log.info("Запрос на получение всех комментариев пользователя с id = {}", userId);
-        return ResponseEntity.ok(commentService.findAll(userId, eventId, createPageRequest(from, size)));
+        return ResponseEntity.ok(commentService.findAll(userId, eventId, afterId, createPageRequest(from, size)));
     }
 
     @PostMapping("/events/{eventId}/comments")
@@ -21,15 +21,16 @@ import java.util.List;
 public class PublicCommentController {
 
     private final CommentService commentService;
-    private static final Sort DEFAULT_SORT = Sort.by(Sort.Direction.DESC, "created");
+    private static final Sort DEFAULT_SORT = Sort.by(Sort.Direction.DESC, "created", "id");
 
     @GetMapping("events/{eventId}/comments")
     public ResponseEntity<List<CommentResponseDto>> findByEvent(
             @PathVariable Long eventId,
+            @RequestParam(required = false) Long afterId,
             @RequestParam(defaultValue = "0") int from,
             @RequestParam(defaultValue = "10") int size) {
         log.info("Запрос на получение всех комментариев у события с id = {}", eventId);
-        return ResponseEntity.ok(commentService.findByEvent(eventId, createPageRequest(from, size)));
+        return ResponseEntity.ok(commentService.findByEvent(eventId, afterId, createPageRequest(from, size)));
     }
 
     @GetMapping("/comments/{commentId}")
@@ -0,0 +1,11 @@
+package ru.practicum.comment.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class EventCommentCountDto {
+    private Long eventId;
+    private Long count;
+}
@@ -20,7 +20,8 @@ public class Comment {
 
     @Column(name = "id")
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "comments_seq")
+    @SequenceGenerator(name = "comments_seq", sequenceName = "comments_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "text", nullable = false)
@@ -1,23 +1,72 @@
 package ru.practicum.comment.repository;
 
-import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import ru.practicum.comment.dto.EventCommentCountDto;
 import ru.practicum.comment.model.Comment;
-import ru.practicum.event.model.Event;
-import ru.practicum.user.model.User;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface CommentRepository extends JpaRepository<Comment, Long> {
 
-    void deleteByEvent(Event event);
+    long countByIdIn(Collection<Long> ids);
 
-    List<Comment> findByEvent(Event event,
-                              PageRequest pageRequest);
+    @Query("SELECT new ru.practicum.comment.dto.EventCommentCountDto(c.event.id, COUNT(c.id)) " +
+            "FROM Comment c WHERE c.id IN :ids GROUP BY c.event.id")
+    List<EventCommentCountDto> countByEventForIds(Collection<Long> ids);
 
-    List<Comment> findByAuthorAndEvent(User author,
-                                       Event event,
-                                       PageRequest pageRequest);
-}
\ No newline at end of file
+    @Modifying
+    @Query("DELETE FROM Comment c WHERE c.id IN :ids")
+    int deleteByIdIn(Collection<Long> ids);
+
+    @Modifying
+    @Query(value = "DELETE FROM comments WHERE id IN " +
+            "(SELECT id FROM comments WHERE event_id = :eventId LIMIT :limit)", nativeQuery = true)
+    int deleteChunkByEventId(Long eventId, int limit);
+
+    @Query("SELECT c FROM Comment c " +
+            "JOIN FETCH c.author " +
+            "JOIN FETCH c.event e " +
+            "JOIN FETCH e.category " +
+            "JOIN FETCH e.initiator " +
+            "JOIN FETCH e.location " +
+            "WHERE e.id = :eventId")
+    List<Comment> findByEventId(Long eventId, Pageable pageable);
+
+    // Курсор задаётся created и id последнего полученного комментария, порядок created DESC, id DESC
+    @Query("SELECT c FROM Comment c " +
+            "JOIN FETCH c.author " +
+            "JOIN FETCH c.event e " +
+            "JOIN FETCH e.category " +
+            "JOIN FETCH e.initiator " +
+            "JOIN FETCH e.location " +
+            "WHERE e.id = :eventId " +
+            "AND (c.created < :afterCreated OR (c.created = :afterCreated AND c.id < :afterId))")
+    List<Comment> findByEventIdAfter(Long eventId, LocalDateTime afterCreated, Long afterId, Pageable pageable);
+
+    @Query("SELECT c FROM Comment c " +
+            "JOIN FETCH c.author a " +
+            "JOIN FETCH c.event e " +
+            "JOIN FETCH e.category " +
+            "JOIN FETCH e.initiator " +
+            "JOIN FETCH e.location " +
+            "WHERE a.id = :authorId AND e.id = :eventId")
+    List<Comment> findByAuthorIdAndEventId(Long authorId, Long eventId, Pageable pageable);
+
+    @Query("SELECT c FROM Comment c " +
+            "JOIN FETCH c.author a " +
+            "JOIN FETCH c.event e " +
+            "JOIN FETCH e.category " +
+            "JOIN FETCH e.initiator " +
+            "JOIN FETCH e.location " +
+            "WHERE a.id = :authorId AND e.id = :eventId " +
+            "AND (c.created < :afterCreated OR (c.created = :afterCreated AND c.id < :afterId))")
+    List<Comment> findByAuthorIdAndEventIdAfter(Long authorId, Long eventId, LocalDateTime afterCreated, Long afterId,
+                                                Pageable pageable);
+}
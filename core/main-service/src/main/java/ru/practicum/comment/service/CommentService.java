@@ -12,6 +12,7 @@ public interface CommentService {
 
     List<CommentResponseDto> findAll(Long userId,
                                      Long eventId,
+                                     Long afterId,
                                      PageRequest pageRequest);
 
     CommentResponseDto save(CommentRequestDto commentRequestDto,
@@ -25,12 +26,13 @@ public interface CommentService {
     void delete(Long userId,
                 Long commentId);
 
-    void deleteByIds(List<Long> ids);
+    int deleteByIds(List<Long> ids);
 
-    void deleteByEventId(Long eventId);
+    int deleteByEventId(Long eventId);
 
 
     List<CommentResponseDto> findByEvent(Long eventId,
+                                         Long afterId,
                                          PageRequest pageRequest);
 
     CommentResponseDto findById(Long commentId);
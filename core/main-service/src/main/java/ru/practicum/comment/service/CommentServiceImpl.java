@@ -6,12 +6,16 @@ import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import ru.practicum.comment.dto.CommentRequestDto;
 import ru.practicum.comment.dto.CommentResponseDto;
+import ru.practicum.comment.dto.EventCommentCountDto;
 import ru.practicum.comment.mapper.CommentMapper;
 import ru.practicum.comment.model.Comment;
 import ru.practicum.comment.repository.CommentRepository;
+import ru.practicum.compilation.service.CompilationCache;
 import ru.practicum.event.model.Event;
 import ru.practicum.event.model.EventState;
 import ru.practicum.event.repository.EventRepository;
@@ -21,7 +25,9 @@ import ru.practicum.exceptions.ValidationException;
 import ru.practicum.user.model.User;
 import ru.practicum.user.repository.UserRepository;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Supplier;
 
 @Service
 @RequiredArgsConstructor
@@ -30,19 +36,31 @@ import java.util.List;
 @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
 public class CommentServiceImpl implements CommentService {
 
+    private static final int DELETE_CHUNK_SIZE = 1000;
+
     CommentRepository commentRepository;
 
     UserRepository userRepository;
 
     EventRepository eventRepository;
 
+    TransactionTemplate transactionTemplate;
+
+    CompilationCache compilationCache;
+
     @Override
+    @Transactional(readOnly = true)
     public List<CommentResponseDto> findAll(Long userId,
                                             Long eventId,
+                                            Long afterId,
                                             PageRequest pageRequest) {
-        User user = getUserById(userId);
-        Event event = getEventById(eventId);
-        List<Comment> comments = commentRepository.findByAuthorAndEvent(user, event, pageRequest);
+        validateUserExists(userId);
+        validateEventExists(eventId);
+        Comment cursor = afterId == null ? null : validateCursor(afterId, eventId, userId);
+        List<Comment> comments = cursor == null
+                ? commentRepository.findByAuthorIdAndEventId(userId, eventId, pageRequest)
+                : commentRepository.findByAuthorIdAndEventIdAfter(userId, eventId, cursor.getCreated(),
+                cursor.getId(), pageRequest.withPage(0));
         return comments.stream().map(CommentMapper::toCommentResponseDto).toList();
     }
 
@@ -57,6 +75,8 @@ public class CommentServiceImpl implements CommentService {
             throw new ConflictException("Нельзя написать комментарий к событию которое еще не было опубликованно");
         }
         Comment comment = commentRepository.save(CommentMapper.toComment(commentRequestDto, user, event));
+        changeCommentCount(eventId, 1);
+        event.setCommentCount(event.getCommentCount() + 1);
         return CommentMapper.toCommentResponseDto(comment);
     }
 
@@ -85,31 +105,69 @@ public class CommentServiceImpl implements CommentService {
             throw new ConflictException("Удалять комментарии разрешено только его автору или инициатору мероприятия");
         }
         commentRepository.deleteById(commentId);
+        changeCommentCount(comment.getEvent().getId(), -1);
     }
 
 
     @Override
-    public void deleteByIds(final List<Long> ids) {
-        List<Event> events = eventRepository.findAllById(ids);
-        if (ids.size() != events.size()) {
-            throw new ValidationException("Были переданы несуществующие id событий");
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public int deleteByIds(final List<Long> ids) {
+        List<Long> distinctIds = ids.stream().distinct().toList();
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int i = 0; i < distinctIds.size(); i += DELETE_CHUNK_SIZE) {
+            chunks.add(distinctIds.subList(i, Math.min(i + DELETE_CHUNK_SIZE, distinctIds.size())));
+        }
+
+        long existing = chunks.stream()
+                .mapToLong(commentRepository::countByIdIn)
+                .sum();
+        if (existing != distinctIds.size()) {
+            throw new ValidationException("Были переданы несуществующие id комментариев");
         }
-        commentRepository.deleteAllById(ids);
-        log.info("Комментарии успешно удалены");
+
+        // Каждая пачка удаляется в своей короткой транзакции
+        int deleted = 0;
+        for (List<Long> chunk : chunks) {
+            deleted += executeInTransaction(() -> {
+                List<EventCommentCountDto> counts = commentRepository.countByEventForIds(chunk);
+                int chunkDeleted = commentRepository.deleteByIdIn(chunk);
+                counts.forEach(count -> changeCommentCount(count.getEventId(), -count.getCount()));
+                return chunkDeleted;
+            });
+        }
+        log.info("Комментарии успешно удалены: {}", deleted);
+        return deleted;
     }
 
     @Override
-    public void deleteByEventId(Long eventId) {
-        Event event = getEventById(eventId);
-        commentRepository.deleteByEvent(event);
-        log.info("Все комментарии у события с id = {} успешно удалены", eventId);
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public int deleteByEventId(Long eventId) {
+        validateEventExists(eventId);
+        int deleted = 0;
+        int chunkDeleted;
+        do {
+            chunkDeleted = executeInTransaction(() -> {
+                int chunkCount = commentRepository.deleteChunkByEventId(eventId, DELETE_CHUNK_SIZE);
+                changeCommentCount(eventId, -chunkCount);
+                return chunkCount;
+            });
+            deleted += chunkDeleted;
+        } while (chunkDeleted == DELETE_CHUNK_SIZE);
+        log.info("Все комментарии у события с id = {} успешно удалены: {}", eventId, deleted);
+        return deleted;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<CommentResponseDto> findByEvent(Long eventId,
+                                                Long afterId,
                                                 PageRequest pageRequest) {
-        Event event = getEventById(eventId);
-        List<Comment> comments = commentRepository.findByEvent(event, pageRequest);
+        validateEventExists(eventId);
+        Comment cursor = afterId == null ? null : validateCursor(afterId, eventId, null);
+        List<Comment> comments = cursor == null
+                ? commentRepository.findByEventId(eventId, pageRequest)
+                : commentRepository.findByEventIdAfter(eventId, cursor.getCreated(), cursor.getId(),
+                pageRequest.withPage(0));
         log.info("Получены все комментарии события с id = {}", eventId);
         return comments.stream().map(CommentMapper::toCommentResponseDto).toList();
     }
@@ -130,6 +188,43 @@ public class CommentServiceImpl implements CommentService {
                 .orElseThrow(() -> new NotFoundException("События с id = {} нет." + eventId));
     }
 
+    private void changeCommentCount(Long eventId, long delta) {
+        if (delta != 0) {
+            eventRepository.addCommentCount(eventId, delta);
+            compilationCache.evictByEvent(eventId);
+        }
+    }
+
+    private int executeInTransaction(Supplier<Integer> action) {
+        Integer result = transactionTemplate.execute(status -> action.get());
+        return result == null ? 0 : result;
+    }
+
+    private void validateUserExists(Long userId) {
+        if (!userRepository.existsById(userId)) {
+            throw new NotFoundException("Пользователя с id = {} нет." + userId);
+        }
+    }
+
+    private void validateEventExists(Long eventId) {
+        if (!eventRepository.existsById(eventId)) {
+            throw new NotFoundException("События с id = {} нет." + eventId);
+        }
+    }
+
+    // Иначе несуществующий или чужой курсор неотличим от конца списка
+    private Comment validateCursor(Long afterId, Long eventId, Long authorId) {
+        Comment cursor = getCommentById(afterId);
+        if (!cursor.getEvent().getId().equals(eventId)) {
+            throw new ValidationException("Комментарий с id = " + afterId + " не относится к событию с id = " + eventId);
+        }
+        if (authorId != null && !cursor.getAuthor().getId().equals(authorId)) {
+            throw new ValidationException("Комментарий с id = " + afterId
+                    + " не принадлежит пользователю с id = " + authorId);
+        }
+        return cursor;
+    }
+
     private Comment getCommentById(Long commentId) {
         return commentRepository.findById(commentId)
                 .orElseThrow(() -> new NotFoundException("Комментария с id = {} нет." + commentId));
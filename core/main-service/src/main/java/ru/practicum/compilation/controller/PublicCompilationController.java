@@ -1,11 +1,16 @@
 package ru.practicum.compilation.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import ru.practicum.compilation.dto.CompilationDto;
+import ru.practicum.compilation.dto.CompilationVersionDto;
 import ru.practicum.compilation.service.CompilationService;
+import ru.practicum.config.ETags;
 
 import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/compilations")
@@ -23,7 +28,19 @@ public class PublicCompilationController {
     }
 
     @GetMapping("/{compId}")
-    public CompilationDto getCompilationById(@PathVariable Long compId) {
-        return compilationService.getCompilationById(compId);
+    public ResponseEntity<CompilationDto> getCompilationById(@PathVariable Long compId, WebRequest webRequest) {
+        Optional<String> etag = compilationService.getCompilationVersion(compId)
+                .map(version -> eTag(compId, version));
+        if (etag.isPresent() && webRequest.checkNotModified(etag.get())) {
+            return null;
+        }
+        CompilationDto compilation = compilationService.getCompilationById(compId);
+        return etag.map(tag -> ResponseEntity.ok().eTag(tag).body(compilation))
+                .orElseGet(() -> ResponseEntity.ok(compilation));
+    }
+
+    private String eTag(Long compId, CompilationVersionDto version) {
+        return ETags.weak("k", compId, version.getVersion(), version.getEventsVersion(),
+                version.getCategoriesVersion(), ETags.digest(compilationService.getCompilationEventCounters(compId)));
     }
 }
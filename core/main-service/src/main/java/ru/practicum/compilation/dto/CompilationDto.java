@@ -7,7 +7,7 @@ import ru.practicum.event.dto.EventShortDto;
 import java.util.List;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 public class CompilationDto {
     private Long id;
     private String title;
@@ -0,0 +1,12 @@
+package ru.practicum.compilation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class CompilationVersionDto {
+    private Long version;
+    private Long eventsVersion;
+    private Long categoriesVersion;
+}
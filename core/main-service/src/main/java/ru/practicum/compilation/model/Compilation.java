@@ -35,4 +35,8 @@ public class Compilation {
             inverseJoinColumns = @JoinColumn(name = "event_id")
     )
     private Set<Event> events;
+
+    // Меняется и при изменении состава подборки
+    @Version
+    private Long version;
 }
\ No newline at end of file
@@ -1,9 +1,41 @@
 package ru.practicum.compilation.repository;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import ru.practicum.compilation.dto.CompilationVersionDto;
 import ru.practicum.compilation.model.Compilation;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface CompilationRepository extends JpaRepository<Compilation, Long> {
-}
\ No newline at end of file
+
+    @Query("SELECT c.id FROM Compilation c " +
+            "WHERE (:pinned IS NULL OR c.pinned = :pinned)")
+    List<Long> findIdsByPinned(@Param("pinned") Boolean pinned,
+                               Pageable pageable);
+
+    @EntityGraph(attributePaths = {"events", "events.category", "events.initiator", "events.location"})
+    List<Compilation> findAllByIdIn(Collection<Long> ids);
+
+    @EntityGraph(attributePaths = {"events", "events.category", "events.initiator", "events.location"})
+    Optional<Compilation> findWithEventsById(Long id);
+
+    // Версии событий и категорий только растут, поэтому их суммы при неизменной версии подборки однозначны
+    @Query("SELECT new ru.practicum.compilation.dto.CompilationVersionDto(c.version, " +
+            "COALESCE(SUM(e.version), 0), COALESCE(SUM(cat.version), 0)) " +
+            "FROM Compilation c LEFT JOIN c.events e LEFT JOIN e.category cat " +
+            "WHERE c.id = :compId GROUP BY c.id, c.version")
+    Optional<CompilationVersionDto> findVersionById(@Param("compId") Long compId);
+
+    // Счётчики событий не меняют их версии, поэтому входят в ETag подборки отдельно
+    @Query("SELECT CONCAT(CAST(e.id AS String), ':', CAST(e.confirmedRequests AS String), ':', " +
+            "CAST(e.commentCount AS String)) FROM Compilation c JOIN c.events e WHERE c.id = :compId ORDER BY e.id")
+    List<String> findEventCountersById(@Param("compId") Long compId);
+}
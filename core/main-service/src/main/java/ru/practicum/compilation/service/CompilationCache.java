@@ -0,0 +1,81 @@
+package ru.practicum.compilation.service;
+
+import org.springframework.stereotype.Component;
+import ru.practicum.config.AfterCommit;
+import ru.practicum.compilation.dto.CompilationDto;
+import ru.practicum.event.dto.EventShortDto;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+public class CompilationCache {
+
+    private final Map<Long, CompilationDto> compilations = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Long>> compilationsByEvent = new ConcurrentHashMap<>();
+    private long generation;
+
+    public CompilationDto get(Long compId) {
+        return compilations.get(compId);
+    }
+
+    public synchronized long generation() {
+        return generation;
+    }
+
+    // Значение, прочитанное до инвалидации, в кэш не попадает
+    public synchronized void put(CompilationDto compilation, long loadedAtGeneration) {
+        if (loadedAtGeneration != generation) {
+            return;
+        }
+        compilations.put(compilation.getId(), compilation);
+        for (EventShortDto event : compilation.getEvents()) {
+            compilationsByEvent.computeIfAbsent(event.getId(), id -> ConcurrentHashMap.newKeySet())
+                    .add(compilation.getId());
+        }
+    }
+
+    public void evict(Long compId) {
+        AfterCommit.run(() -> evictNow(compId));
+    }
+
+    public void evictByEvent(Long eventId) {
+        AfterCommit.run(() -> {
+            synchronized (this) {
+                generation++;
+                Set<Long> compIds = compilationsByEvent.remove(eventId);
+                if (compIds != null) {
+                    compIds.forEach(this::remove);
+                }
+            }
+        });
+    }
+
+    public void evictAll() {
+        AfterCommit.run(() -> {
+            synchronized (this) {
+                generation++;
+                compilations.clear();
+                compilationsByEvent.clear();
+            }
+        });
+    }
+
+    private synchronized void evictNow(Long compId) {
+        generation++;
+        remove(compId);
+    }
+
+    private void remove(Long compId) {
+        CompilationDto removed = compilations.remove(compId);
+        if (removed != null) {
+            for (EventShortDto event : removed.getEvents()) {
+                Set<Long> compIds = compilationsByEvent.get(event.getId());
+                if (compIds != null) {
+                    compIds.remove(compId);
+                }
+            }
+        }
+    }
+}
@@ -2,9 +2,11 @@ package ru.practicum.compilation.service;
 
 import ru.practicum.compilation.dto.CompilationDto;
 import ru.practicum.compilation.dto.NewCompilationDto;
+import ru.practicum.compilation.dto.CompilationVersionDto;
 import ru.practicum.compilation.dto.UpdateCompilationRequest;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface CompilationService {
 
@@ -17,4 +19,8 @@ public interface CompilationService {
     List<CompilationDto> getCompilations(Boolean pinned, int from, int size);
 
     CompilationDto getCompilationById(Long compId);
+
+    Optional<CompilationVersionDto> getCompilationVersion(Long compId);
+
+    List<String> getCompilationEventCounters(Long compId);
 }
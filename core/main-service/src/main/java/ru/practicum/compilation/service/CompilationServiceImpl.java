@@ -1,42 +1,69 @@
 package ru.practicum.compilation.service;
 
-import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import ru.practicum.compilation.dto.CompilationDto;
+import ru.practicum.compilation.dto.CompilationVersionDto;
 import ru.practicum.compilation.dto.NewCompilationDto;
 import ru.practicum.compilation.dto.UpdateCompilationRequest;
 import ru.practicum.compilation.mapper.CompilationMapper;
 import ru.practicum.compilation.model.Compilation;
 import ru.practicum.compilation.repository.CompilationRepository;
+import ru.practicum.event.dto.EventShortDto;
 import ru.practicum.event.model.Event;
 import ru.practicum.event.repository.EventRepository;
+import ru.practicum.event.service.EventViewService;
 import ru.practicum.exceptions.NotFoundException;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
-@RequiredArgsConstructor
 @Transactional(readOnly = true)
 public class CompilationServiceImpl implements CompilationService {
 
+    private static final Sort DEFAULT_SORT = Sort.by(Sort.Direction.ASC, "id");
+
     private final CompilationRepository compilationRepository;
     private final EventRepository eventRepository;
+    private final EventViewService eventViewService;
+    private final CompilationCache compilationCache;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public CompilationServiceImpl(CompilationRepository compilationRepository,
+                                  EventRepository eventRepository,
+                                  EventViewService eventViewService,
+                                  CompilationCache compilationCache,
+                                  PlatformTransactionManager transactionManager) {
+        this.compilationRepository = compilationRepository;
+        this.eventRepository = eventRepository;
+        this.eventViewService = eventViewService;
+        this.compilationCache = compilationCache;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
 
     @Override
     @Transactional
     public CompilationDto createCompilation(NewCompilationDto dto) {
-        Set<Event> events = dto.getEvents() == null
-                ? Collections.emptySet()
-                : new HashSet<>(eventRepository.findAllById(dto.getEvents()));
+        Set<Event> events = findEvents(dto.getEvents());
 
         Compilation compilation = CompilationMapper.toEntity(dto, events);
         Compilation saved = compilationRepository.save(compilation);
+        compilationCache.evict(saved.getId());
         return CompilationMapper.toDto(saved);
     }
 
@@ -55,11 +82,11 @@ public class CompilationServiceImpl implements CompilationService {
         }
 
         if (updateRequest.getEvents() != null) {
-            Set<Event> updatedEvents = new HashSet<>(eventRepository.findAllById(updateRequest.getEvents()));
-            compilation.setEvents(updatedEvents);
+            compilation.setEvents(findEvents(updateRequest.getEvents()));
         }
 
         Compilation updated = compilationRepository.save(compilation);
+        compilationCache.evict(compId);
         return CompilationMapper.toDto(updated);
     }
 
@@ -70,23 +97,102 @@ public class CompilationServiceImpl implements CompilationService {
             throw new NotFoundException("Подборка с id=" + compId + " не найдена");
         }
         compilationRepository.deleteById(compId);
+        compilationCache.evict(compId);
     }
 
+    // Просмотры запрашиваются у сервиса статистики по HTTP, поэтому уже после транзакции чтения
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public List<CompilationDto> getCompilations(Boolean pinned, int from, int size) {
-        PageRequest page = PageRequest.of(from / size, size);
-        List<Compilation> all = compilationRepository.findAll(page).getContent();
-
-        return all.stream()
-                .filter(c -> pinned == null || c.isPinned() == pinned)
-                .map(CompilationMapper::toDto)
-                .collect(Collectors.toList());
+        List<CompilationDto> compilations = readOnlyTransaction.execute(status -> loadCompilations(pinned, from, size));
+        return compilations == null || compilations.isEmpty() ? Collections.emptyList() : withViews(compilations);
     }
 
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public CompilationDto getCompilationById(Long compId) {
-        Compilation compilation = compilationRepository.findById(compId)
-                .orElseThrow(() -> new NotFoundException("Подборка с id=" + compId + " не найдена"));
-        return CompilationMapper.toDto(compilation);
+        CompilationDto compilation = compilationCache.get(compId);
+        if (compilation == null) {
+            compilation = readOnlyTransaction.execute(status -> loadCompilation(compId));
+        }
+        return withViews(List.of(compilation)).getFirst();
+    }
+
+    @Override
+    public Optional<CompilationVersionDto> getCompilationVersion(Long compId) {
+        return compilationRepository.findVersionById(compId);
+    }
+
+    @Override
+    public List<String> getCompilationEventCounters(Long compId) {
+        return compilationRepository.findEventCountersById(compId);
+    }
+
+    private List<CompilationDto> loadCompilations(Boolean pinned, int from, int size) {
+        PageRequest page = PageRequest.of(from / size, size, DEFAULT_SORT);
+        List<Long> ids = compilationRepository.findIdsByPinned(pinned, page);
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Map<Long, CompilationDto> compilations = new HashMap<>();
+        List<Long> missingIds = new ArrayList<>();
+        for (Long id : ids) {
+            CompilationDto cached = compilationCache.get(id);
+            if (cached != null) {
+                compilations.put(id, cached);
+            } else {
+                missingIds.add(id);
+            }
+        }
+
+        // Отсутствующие в кэше подборки со всеми событиями загружаются одним запросом
+        if (!missingIds.isEmpty()) {
+            long generation = compilationCache.generation();
+            for (Compilation compilation : compilationRepository.findAllByIdIn(missingIds)) {
+                CompilationDto dto = CompilationMapper.toDto(compilation);
+                compilationCache.put(dto, generation);
+                compilations.put(dto.getId(), dto);
+            }
+        }
+
+        return ids.stream()
+                .map(compilations::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    private CompilationDto loadCompilation(Long compId) {
+        long generation = compilationCache.generation();
+        CompilationDto compilation = CompilationMapper.toDto(compilationRepository.findWithEventsById(compId)
+                .orElseThrow(() -> new NotFoundException("Подборка с id=" + compId + " не найдена")));
+        compilationCache.put(compilation, generation);
+        return compilation;
+    }
+
+    // Кэшированные DTO не изменяются: просмотры подставляются в копии одним запросом к статистике
+    private List<CompilationDto> withViews(List<CompilationDto> compilations) {
+        Set<Long> eventIds = compilations.stream()
+                .flatMap(compilation -> compilation.getEvents().stream())
+                .map(EventShortDto::getId)
+                .collect(Collectors.toSet());
+        Map<Long, Long> views = eventViewService.getViews(eventIds);
+
+        return compilations.stream()
+                .map(compilation -> compilation.toBuilder()
+                        .events(compilation.getEvents().stream()
+                                .map(event -> event.toBuilder()
+                                        .views(views.getOrDefault(event.getId(), 0L))
+                                        .build())
+                                .toList())
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    private Set<Event> findEvents(List<Long> eventIds) {
+        if (eventIds == null || eventIds.isEmpty()) {
+            return new HashSet<>();
+        }
+        return new HashSet<>(eventRepository.findAllByIdIn(eventIds));
     }
 }
\ No newline at end of file
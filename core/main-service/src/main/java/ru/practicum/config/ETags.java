@@ -0,0 +1,26 @@
+package ru.practicum.config;
+
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.stream.Collectors;
+
+// Слабые ETag из версий сущностей и счётчиков. Просмотры в тег не входят, чтобы 304 отдавался
+// без запроса к сервису статистики, поэтому тело при совпавшем теге может отличаться числом просмотров
+public final class ETags {
+
+    private ETags() {
+    }
+
+    public static String weak(Object... parts) {
+        return Arrays.stream(parts)
+                .map(String::valueOf)
+                .collect(Collectors.joining("-", "W/\"", "\""));
+    }
+
+    public static String digest(Collection<?> parts) {
+        return DigestUtils.md5DigestAsHex(parts.toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,84 @@
+package ru.practicum.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.function.Supplier;
+
+// Потоковые выгрузки держат соединение всё время чтения курсора. Внутри run() соединения берутся из отдельного
+// небольшого пула без порога утечек, а основной пул сохраняет короткий leak-detection-threshold
+public class ExportDataSource extends DelegatingDataSource implements AutoCloseable {
+    private static final ThreadLocal<Boolean> EXPORTING = new ThreadLocal<>();
+    private static final long EXPORT_IDLE_TIMEOUT_MS = 60_000;
+
+    private final HikariDataSource pool;
+    private final int exportPoolSize;
+    private volatile HikariDataSource exportPool;
+
+    public ExportDataSource(HikariDataSource pool, int exportPoolSize) {
+        super(pool);
+        this.pool = pool;
+        this.exportPoolSize = exportPoolSize;
+    }
+
+    public static <T> T run(Supplier<T> export) {
+        EXPORTING.set(Boolean.TRUE);
+        try {
+            return export.get();
+        } finally {
+            EXPORTING.remove();
+        }
+    }
+
+    public static void run(Runnable export) {
+        run(() -> {
+            export.run();
+            return null;
+        });
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return EXPORTING.get() == null ? pool.getConnection() : exportPool().getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return EXPORTING.get() == null
+                ? pool.getConnection(username, password)
+                : exportPool().getConnection(username, password);
+    }
+
+    @Override
+    public void close() {
+        if (exportPool != null) {
+            exportPool.close();
+        }
+        pool.close();
+    }
+
+    // Пул создаётся при первой выгрузке с теми же параметрами подключения, что и основной
+    private HikariDataSource exportPool() {
+        HikariDataSource result = exportPool;
+        if (result == null) {
+            synchronized (this) {
+                result = exportPool;
+                if (result == null) {
+                    HikariConfig config = new HikariConfig();
+                    pool.copyStateTo(config);
+                    config.setPoolName(pool.getPoolName() + "-export");
+                    config.setMaximumPoolSize(exportPoolSize);
+                    config.setMinimumIdle(0);
+                    config.setIdleTimeout(EXPORT_IDLE_TIMEOUT_MS);
+                    config.setLeakDetectionThreshold(0);
+                    result = new HikariDataSource(config);
+                    exportPool = result;
+                }
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,23 @@
+package ru.practicum.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+@Configuration
+public class ExportDataSourceConfig {
+
+    // Каждый пул Hikari (основной и реплика) получает свой пул для выгрузок
+    @Bean
+    public static BeanPostProcessor exportDataSourcePostProcessor(Environment environment) {
+        int exportPoolSize = environment.getProperty("spring.datasource.export.maximum-pool-size", Integer.class, 2);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof HikariDataSource pool ? new ExportDataSource(pool, exportPoolSize) : bean;
+            }
+        };
+    }
+}
@@ -1,18 +1,30 @@
 package ru.practicum.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.web.filter.CommonsRequestLoggingFilter;
 
 @Configuration
 public class LoggingFilterConfig {
+
+    @Value("${request-logging.sample-rate:0.01}")
+    private double sampleRate;
+
+    @Value("${request-logging.max-headers:10}")
+    private int maxHeaders;
+
+    @Value("${request-logging.max-header-length:200}")
+    private int maxHeaderLength;
+
+    @Value("${request-logging.include-payload:false}")
+    private boolean includePayload;
+
+    @Value("${request-logging.max-payload-length:1024}")
+    private int maxPayloadLength;
+
     @Bean
-    public CommonsRequestLoggingFilter requestLoggingFilter() {
-        CommonsRequestLoggingFilter loggingFilter = new CommonsRequestLoggingFilter();
-        loggingFilter.setIncludeClientInfo(true);
-        loggingFilter.setIncludeQueryString(true);
-        loggingFilter.setIncludePayload(true);
-        loggingFilter.setMaxPayloadLength(10000);
-        return loggingFilter;
+    public SampledRequestLoggingFilter requestLoggingFilter() {
+        return new SampledRequestLoggingFilter(sampleRate, maxHeaders, maxHeaderLength,
+                includePayload, maxPayloadLength);
     }
-}
\ No newline at end of file
+}
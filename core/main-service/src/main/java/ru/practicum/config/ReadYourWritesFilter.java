@@ -0,0 +1,68 @@
+package ru.practicum.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// После изменения данных чтения клиента в течение окна отставания реплики идут в основную БД
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+    private static final int CLEANUP_THRESHOLD = 10_000;
+
+    private final long windowNanos;
+    private final Map<String, Long> lastWrites = new ConcurrentHashMap<>();
+
+    public ReadYourWritesFilter(long windowMillis) {
+        this.windowNanos = windowMillis * 1_000_000;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String client = clientKey(request);
+        boolean write = isWrite(request);
+        long now = System.nanoTime();
+        Long lastWrite = lastWrites.get(client);
+        if (write || (lastWrite != null && now - lastWrite < windowNanos)) {
+            ReplicaRoutingDataSource.forcePrimary();
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ReplicaRoutingDataSource.clear();
+            if (write) {
+                recordWrite(client);
+            }
+        }
+    }
+
+    private void recordWrite(String client) {
+        long now = System.nanoTime();
+        if (lastWrites.size() > CLEANUP_THRESHOLD) {
+            lastWrites.values().removeIf(time -> now - time >= windowNanos);
+        }
+        lastWrites.put(client, now);
+    }
+
+    private boolean isWrite(HttpServletRequest request) {
+        String method = request.getMethod();
+        return !"GET".equals(method) && !"HEAD".equals(method) && !"OPTIONS".equals(method);
+    }
+
+    // За шлюзом адрес клиента передаётся в X-Forwarded-For. Первые адреса задаёт сам клиент,
+    // поэтому берётся последний - его дописывает шлюз по адресу соединения
+    private String clientKey(HttpServletRequest request) {
+        String forwarded = request.getHeader("X-Forwarded-For");
+        if (StringUtils.hasText(forwarded)) {
+            return forwarded.substring(forwarded.lastIndexOf(',') + 1).trim();
+        }
+        return request.getRemoteAddr();
+    }
+}
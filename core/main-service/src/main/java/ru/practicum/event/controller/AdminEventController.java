@@ -1,5 +1,8 @@
 package ru.practicum.event.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Positive;
 import jakarta.validation.constraints.PositiveOrZero;
@@ -8,17 +11,26 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.util.ObjectUtils;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.config.ExportDataSource;
 import ru.practicum.event.dto.EventFullDto;
 import ru.practicum.event.dto.SearchAdminEventsParamDto;
 import ru.practicum.event.dto.UpdateEventAdminRequest;
 import ru.practicum.event.model.EventState;
 import ru.practicum.event.service.EventService;
+import ru.practicum.exceptions.ApiError;
 import ru.practicum.exceptions.ValidationException;
 
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -31,7 +43,10 @@ import java.util.stream.Collectors;
 public class AdminEventController {
     private static final String DATE_TIME_PATTERN = "yyyy-MM-dd HH:mm:ss";
     private static final Sort DEFAULT_SORT = Sort.by(Sort.Direction.ASC, "id");
+    private static final String NDJSON = "application/x-ndjson";
+    private static final int EXPORT_BUFFER_SIZE = 64 * 1024;
     private final EventService eventService;
+    private final ObjectMapper objectMapper;
 
     @GetMapping
     public ResponseEntity<List<EventFullDto>> searchEventsByAdmin(
@@ -67,6 +82,79 @@ public class AdminEventController {
         );
     }
 
+    @GetMapping(value = "/export", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportEventsByAdmin(
+            @RequestParam(required = false) List<Long> users,
+            @RequestParam(required = false) List<String> stateStrings,
+            @RequestParam(required = false) List<Long> categoriesIds,
+            @RequestParam(required = false)
+            @DateTimeFormat(pattern = DATE_TIME_PATTERN) LocalDateTime rangeStart,
+            @RequestParam(required = false)
+            @DateTimeFormat(pattern = DATE_TIME_PATTERN) LocalDateTime rangeEnd) {
+
+        if (rangeStart == null) rangeStart = LocalDateTime.now();
+        if (rangeEnd == null) rangeEnd = LocalDateTime.now().plusYears(100);
+        validateTimeRange(rangeStart, rangeEnd);
+
+        List<EventState> states = parseEventStates(stateStrings);
+        log.info("Админ выгрузка событий по параметрам: " +
+                        "users={}, states={}, categoriesIds={}, rangeStart={}, rangeEnd={}",
+                users, states, categoriesIds, rangeStart, rangeEnd);
+        SearchAdminEventsParamDto searchAdminEventsParamDto =
+                SearchAdminEventsParamDto.builder()
+                        .users(users)
+                        .eventStates(states)
+                        .categoriesIds(categoriesIds)
+                        .rangeStart(rangeStart)
+                        .rangeEnd(rangeEnd)
+                        .build();
+
+        // Каждое событие пишется отдельной строкой JSON в буферизованный поток, сброс один раз в конце
+        StreamingResponseBody body = responseStream -> {
+            ObjectWriter writer = objectMapper.writer()
+                    .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                    .without(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+            OutputStream outputStream = new BufferedOutputStream(responseStream, EXPORT_BUFFER_SIZE);
+            try {
+                ExportDataSource.run(() -> eventService.exportEventsByAdmin(searchAdminEventsParamDto, event -> {
+                    try {
+                        writer.writeValue(outputStream, event);
+                        outputStream.write('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }));
+            } catch (RuntimeException e) {
+                // Ответ 200 уже отправлен: последняя строка с ApiError отличает оборванную выгрузку от полной,
+                // а исключение обрывает соединение без завершающего блока
+                log.error("Выгрузка событий прервана", e);
+                if (!(e instanceof UncheckedIOException)) {
+                    writeExportError(writer, outputStream);
+                }
+                throw e;
+            }
+            outputStream.flush();
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .body(body);
+    }
+
+    private void writeExportError(ObjectWriter writer, OutputStream outputStream) {
+        ApiError error = ApiError.builder()
+                .timestamp(LocalDateTime.now())
+                .status(HttpStatus.INTERNAL_SERVER_ERROR.value())
+                .message("Выгрузка событий прервана из-за ошибки на сервере")
+                .build();
+        try {
+            writer.writeValue(outputStream, error);
+            outputStream.write('\n');
+            outputStream.flush();
+        } catch (IOException e) {
+            log.warn("Не удалось записать ошибку в конец выгрузки: {}", e.getMessage());
+        }
+    }
+
     @PatchMapping("/{eventId}")
     public ResponseEntity<EventFullDto> updateEventByAdmin(
             @PathVariable @Positive Long eventId,
@@ -11,22 +11,21 @@ import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import ru.practicum.StatsClient;
+import ru.practicum.config.ETags;
 import ru.practicum.event.dto.EventFullDto;
 import ru.practicum.event.dto.EventShortDto;
 import ru.practicum.event.dto.SearchPublicEventsParamDto;
 import ru.practicum.event.model.EventSort;
 import ru.practicum.event.service.EventService;
+import ru.practicum.event.service.EventViewService;
 import ru.practicum.exceptions.ValidationException;
 import ru.practicum.stats.dto.EndpointHitDto;
-import ru.practicum.stats.dto.ViewStatsDto;
 
-import java.nio.file.Path;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 @Slf4j
 @Validated
@@ -38,11 +37,9 @@ public class PublicEventController {
     private static final String DEFAULT_TEXT = "";
     private static final int DEFAULT_PAGE_SIZE = 10;
     private static final int DEFAULT_PAGE_START = 0;
-    private static final int START_SEARCH_DATE_PERIOD = 100;
-    private static final int END_SEARCH_DATE_PERIOD = 300;
     private final EventService eventService;
+    private final EventViewService eventViewService;
     private final StatsClient statsClient;
-    DateTimeFormatter dateTimeFormatter = DateTimeFormatter.ofPattern(DATE_TIME_PATTERN);
 
     @GetMapping
     public ResponseEntity<List<EventShortDto>> searchPublicEvents(
@@ -54,6 +51,13 @@ public class PublicEventController {
             @RequestParam(required = false)
             @DateTimeFormat(pattern = DATE_TIME_PATTERN) LocalDateTime rangeEnd,
             @RequestParam(defaultValue = "false") boolean onlyAvailable,
+            @RequestParam(required = false) Double lat,
+            @RequestParam(required = false) Double lon,
+            @RequestParam(required = false) @Positive Double radius,
+            @RequestParam(required = false) Double minLat,
+            @RequestParam(required = false) Double maxLat,
+            @RequestParam(required = false) Double minLon,
+            @RequestParam(required = false) Double maxLon,
             @RequestParam(required = false) EventSort eventSort,
             @RequestParam(defaultValue = "" + DEFAULT_PAGE_START) @PositiveOrZero int from,
             @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) @Positive int size,
@@ -65,7 +69,18 @@ public class PublicEventController {
         if (rangeStart == null) rangeStart = LocalDateTime.now();
         if (rangeEnd == null) rangeEnd = LocalDateTime.now().plusYears(100);
 
-        PageRequest pageRequest = createPageRequest(from, size, eventSort);
+        boolean byRadius = lat != null || lon != null || radius != null;
+        boolean byBoundingBox = minLat != null || maxLat != null || minLon != null || maxLon != null;
+        validateLocationFilter(lat, lon, radius, minLat, maxLat, minLon, maxLon);
+        if (eventSort == EventSort.DISTANCE && !byRadius && !byBoundingBox) {
+            throw new ValidationException("Сортировка по расстоянию требует указать местоположение");
+        }
+        boolean sortByDistance = eventSort == EventSort.DISTANCE
+                || (eventSort == null && (byRadius || byBoundingBox));
+
+        PageRequest pageRequest = sortByDistance
+                ? PageRequest.of(from / size, size)
+                : createPageRequest(from, size, eventSort);
         SearchPublicEventsParamDto searchPublicEventsParamDto =
                 SearchPublicEventsParamDto.builder().text(text)
                         .categoriesIds(categoriesIds)
@@ -73,6 +88,14 @@ public class PublicEventController {
                         .rangeStart(rangeStart)
                         .rangeEnd(rangeEnd)
                         .onlyAvailable(onlyAvailable)
+                        .lat(lat)
+                        .lon(lon)
+                        .radius(radius)
+                        .minLat(minLat)
+                        .maxLat(maxLat)
+                        .minLon(minLon)
+                        .maxLon(maxLon)
+                        .sortByDistance(sortByDistance)
                         .pageRequest(pageRequest)
                         .build();
 
@@ -80,20 +103,7 @@ public class PublicEventController {
         List<Long> eventShortDtoIds = eventShortDtos.stream().map(EventShortDto::getId).toList();
 
         log.info("Запрос статистики для событий с id {}", eventShortDtoIds);
-        String start = rangeStart.format(dateTimeFormatter);
-        String end = rangeEnd.format(dateTimeFormatter);
-        List<String> uris = buildUrisFromPathAndIds(request.getRequestURI(), eventShortDtoIds);
-        List<ViewStatsDto> viewStatsDtos = getStatisticsEventViews(start,
-                end, uris, true);
-        Map<Long, Long> viewsMap = viewStatsDtos.stream()
-                .collect(Collectors.toMap(
-                        stats -> {
-                            String[] parts = stats.getUri().split("/");
-                            return Long.parseLong(parts[parts.length - 1]);
-                        },
-                        ViewStatsDto::getHits,
-                        (existing, replacement) -> existing
-                ));
+        Map<Long, Long> viewsMap = eventViewService.getViews(eventShortDtoIds);
 
         eventShortDtos.forEach(dto ->
                 dto.setViews(viewsMap.getOrDefault(dto.getId(), 0L))
@@ -107,25 +117,28 @@ public class PublicEventController {
     @GetMapping("/{eventId}")
     public ResponseEntity<EventFullDto> getEvent(
             @PathVariable @Positive Long eventId,
-            HttpServletRequest request) {
+            HttpServletRequest request,
+            WebRequest webRequest) {
         log.info("Запрос на получение опубликованого события с id {}", eventId);
+        // Версия проверяется до загрузки события и запроса просмотров; ответ 304 тоже считается просмотром
+        String etag = eventService.getPublicEventVersion(eventId)
+                .map(v -> ETags.weak("e", eventId, v.getVersion(), v.getCategoryVersion(),
+                        v.getConfirmedRequests(), v.getCommentCount()))
+                .orElse(null);
+        if (etag != null && webRequest.checkNotModified(etag)) {
+            saveStat(request);
+            return null;
+        }
+
         EventFullDto eventFullDto = eventService.getPublicEvent(eventId, request);
 
         log.info("Запрос статистики для события с id {}", eventId);
-        String start = LocalDateTime.now().minusYears(START_SEARCH_DATE_PERIOD).format(dateTimeFormatter);
-        String end = LocalDateTime.now().plusYears(END_SEARCH_DATE_PERIOD).format(dateTimeFormatter);
-        List<ViewStatsDto> viewStatsDtos = getStatisticsEventViews(start,
-                end, List.of(request.getRequestURI()), true);
-        if (viewStatsDtos.size() != 0) {
-            eventFullDto.setViews(viewStatsDtos.get(0).getHits());
-        } else {
-            eventFullDto.setViews(0L);
-        }
+        eventFullDto.setViews(eventViewService.getViews(List.of(eventId)).getOrDefault(eventId, 0L));
 
         log.info("Обновляем статистику");
         if (eventFullDto.getId() != null) saveStat(request);
 
-        return ResponseEntity.ok(eventFullDto);
+        return etag == null ? ResponseEntity.ok(eventFullDto) : ResponseEntity.ok().eTag(etag).body(eventFullDto);
     }
 
     private PageRequest createPageRequest(int from, int size, EventSort sort) {
@@ -143,6 +156,37 @@ public class PublicEventController {
         }
     }
 
+    private void validateLocationFilter(Double lat, Double lon, Double radius,
+                                        Double minLat, Double maxLat, Double minLon, Double maxLon) {
+        boolean byRadius = lat != null || lon != null || radius != null;
+        boolean byBoundingBox = minLat != null || maxLat != null || minLon != null || maxLon != null;
+        if (byRadius && byBoundingBox) {
+            throw new ValidationException("Нельзя одновременно задать радиус и прямоугольную область");
+        }
+        if (byRadius && (lat == null || lon == null || radius == null)) {
+            throw new ValidationException("Для поиска по радиусу нужны lat, lon и radius");
+        }
+        if (byBoundingBox && (minLat == null || maxLat == null || minLon == null || maxLon == null)) {
+            throw new ValidationException("Для поиска в области нужны minLat, maxLat, minLon и maxLon");
+        }
+        if (byRadius) {
+            validateCoordinates(lat, lon);
+        }
+        if (byBoundingBox) {
+            validateCoordinates(minLat, minLon);
+            validateCoordinates(maxLat, maxLon);
+            if (minLat > maxLat || minLon > maxLon) {
+                throw new ValidationException("Минимальные координаты области должны быть не больше максимальных");
+            }
+        }
+    }
+
+    private void validateCoordinates(double lat, double lon) {
+        if (lat < -90 || lat > 90 || lon < -180 || lon > 180) {
+            throw new ValidationException("Координаты вне допустимого диапазона: " + lat + ", " + lon);
+        }
+    }
+
     public void saveStat(HttpServletRequest request) {
         EndpointHitDto hitDto = EndpointHitDto.builder()
                 .app("ewm-service-1")
@@ -152,24 +196,4 @@ public class PublicEventController {
                 .build();
         statsClient.saveStatEvent(hitDto);
     }
-
-    public List<ViewStatsDto> getStatisticsEventViews(String start,
-                                                      String end,
-                                                      List<String> uris,
-                                                      boolean unique) {
-        ResponseEntity<List<ViewStatsDto>> response = statsClient.getStats(
-                start,
-                end,
-                uris,
-                unique
-        );
-
-        return response.getBody();
-    }
-
-    public List<String> buildUrisFromPathAndIds(String uriPath, List<Long> ids) {
-        return ids.stream()
-                .map(id -> Path.of(uriPath, String.valueOf(id)).toString())
-                .collect(Collectors.toList());
-    }
 }
\ No newline at end of file
@@ -31,4 +31,5 @@ public class EventFullDto {
     private EventState state;
     private String title;
     private Long views;
+    private Long commentCount;
 }
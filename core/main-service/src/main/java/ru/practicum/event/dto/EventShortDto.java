@@ -9,7 +9,7 @@ import ru.practicum.user.dto.UserDto;
 import java.time.LocalDateTime;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 public class EventShortDto {
     private String annotation;
     private CategoryDto category;
@@ -21,4 +21,5 @@ public class EventShortDto {
     private Boolean paid;
     private String title;
     private Long views;
+    private Long commentCount;
 }
@@ -0,0 +1,13 @@
+package ru.practicum.event.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class EventVersionDto {
+    private Long version;
+    private Long categoryVersion;
+    private Integer confirmedRequests;
+    private Long commentCount;
+}
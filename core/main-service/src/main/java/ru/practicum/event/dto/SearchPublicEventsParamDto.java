@@ -17,6 +17,22 @@ public class SearchPublicEventsParamDto {
     LocalDateTime rangeStart;
     LocalDateTime rangeEnd;
     boolean onlyAvailable;
+    Double lat;
+    Double lon;
+    Double radius;
+    Double minLat;
+    Double maxLat;
+    Double minLon;
+    Double maxLon;
+    boolean sortByDistance;
     PageRequest pageRequest;
     HttpServletRequest request;
+
+    public boolean hasRadius() {
+        return lat != null && lon != null && radius != null;
+    }
+
+    public boolean hasBoundingBox() {
+        return minLat != null && maxLat != null && minLon != null && maxLon != null;
+    }
 }
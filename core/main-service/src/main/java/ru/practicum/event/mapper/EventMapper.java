@@ -51,6 +51,7 @@ public class EventMapper {
                 .paid(event.getPaid())
                 .title(event.getTitle())
                 .views(0L)
+                .commentCount(event.getCommentCount())
                 .build();
     }
 
@@ -77,6 +78,7 @@ public class EventMapper {
                 .state(event.getState())
                 .title(event.getTitle())
                 .views(0L)
+                .commentCount(event.getCommentCount())
                 .build();
     }
 }
@@ -53,7 +53,7 @@ public class Event {
     @Column(name = "created_on")
     private LocalDateTime createdOn;
 
-    @ManyToOne(cascade = CascadeType.ALL)
+    @ManyToOne
     @JoinColumn(name = "location_id")
     private Location location;
 
@@ -63,6 +63,16 @@ public class Event {
     @Column(name = "published_on")
     private LocalDateTime publishedOn;
 
-    @Column(name = "confirmed_requests")
+    // Изменяется только атомарными UPDATE, поэтому сохранение события не затирает параллельные подтверждения
+    @Column(name = "confirmed_requests", updatable = false)
     private Integer confirmedRequests;
+
+    // Изменяется только атомарными UPDATE из CommentServiceImpl
+    @Column(name = "comment_count", insertable = false, updatable = false)
+    @Builder.Default
+    private Long commentCount = 0L;
+
+    // Счётчики версию не увеличивают: иначе каждая заявка или комментарий ломали бы сохранение события
+    @Version
+    private Long version;
 }
@@ -4,7 +4,8 @@ import lombok.Getter;
 
 public enum EventSort {
     EVENT_DATE("EVENT_DATE"),
-    VIEWS("VIEWS");
+    VIEWS("VIEWS"),
+    DISTANCE("DISTANCE");
 
     @Getter
     private final String title;
@@ -0,0 +1,83 @@
+package ru.practicum.event.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public final class GeoHash {
+    public static final int MAX_PRECISION = 12;
+    private static final char[] BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+
+    private GeoHash() {
+    }
+
+    public static String encode(double lat, double lon, int precision) {
+        double minLat = -90;
+        double maxLat = 90;
+        double minLon = -180;
+        double maxLon = 180;
+        StringBuilder hash = new StringBuilder(precision);
+        boolean evenBit = true;
+        int bit = 0;
+        int index = 0;
+        while (hash.length() < precision) {
+            if (evenBit) {
+                double mid = (minLon + maxLon) / 2;
+                if (lon >= mid) {
+                    index = index * 2 + 1;
+                    minLon = mid;
+                } else {
+                    index = index * 2;
+                    maxLon = mid;
+                }
+            } else {
+                double mid = (minLat + maxLat) / 2;
+                if (lat >= mid) {
+                    index = index * 2 + 1;
+                    minLat = mid;
+                } else {
+                    index = index * 2;
+                    maxLat = mid;
+                }
+            }
+            evenBit = !evenBit;
+            if (++bit == 5) {
+                hash.append(BASE32[index]);
+                bit = 0;
+                index = 0;
+            }
+        }
+        return hash.toString();
+    }
+
+    // Ячейки наибольшей точности, не меньшие прямоугольника, покрывают его не более чем четырьмя префиксами
+    public static List<String> coveringCells(double minLat, double maxLat, double minLon, double maxLon) {
+        int precision = coveringPrecision(maxLat - minLat, maxLon - minLon);
+        List<String> cells = new ArrayList<>(4);
+        if (precision == 0) {
+            return cells;
+        }
+        addDistinct(cells, encode(minLat, minLon, precision));
+        addDistinct(cells, encode(minLat, maxLon, precision));
+        addDistinct(cells, encode(maxLat, minLon, precision));
+        addDistinct(cells, encode(maxLat, maxLon, precision));
+        return cells;
+    }
+
+    private static int coveringPrecision(double latSpan, double lonSpan) {
+        for (int precision = MAX_PRECISION; precision > 0; precision--) {
+            int bits = precision * 5;
+            double cellWidth = 360.0 / (1L << ((bits + 1) / 2));
+            double cellHeight = 180.0 / (1L << (bits / 2));
+            if (cellWidth >= lonSpan && cellHeight >= latSpan) {
+                return precision;
+            }
+        }
+        return 0;
+    }
+
+    private static void addDistinct(List<String> cells, String cell) {
+        if (!cells.contains(cell)) {
+            cells.add(cell);
+        }
+    }
+}
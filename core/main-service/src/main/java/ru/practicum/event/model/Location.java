@@ -19,6 +19,15 @@ public class Location {
     @Column(name = "id", nullable = false)
     @JsonIgnore
     private Long id;
-    private float lat;
-    private float lon;
+    private double lat;
+    private double lon;
+    @Column(name = "geohash", length = GeoHash.MAX_PRECISION)
+    @JsonIgnore
+    private String geohash;
+
+    @PrePersist
+    @PreUpdate
+    public void updateGeohash() {
+        geohash = GeoHash.encode(lat, lon, GeoHash.MAX_PRECISION);
+    }
 }
@@ -1,16 +1,42 @@
 package ru.practicum.event.repository;
 
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import ru.practicum.event.dto.EventVersionDto;
 import ru.practicum.event.model.Event;
+import ru.practicum.event.model.EventState;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface EventRepository extends JpaRepository<Event, Long>, JpaSpecificationExecutor<Event> {
 
     List<Event> findByInitiatorId(Long initiatorId,
                                   Pageable pageable);
+
+    @EntityGraph(attributePaths = {"category", "initiator", "location"})
+    List<Event> findAllByIdIn(Collection<Long> ids);
+
+    @Modifying
+    @Query("UPDATE Event e SET e.commentCount = e.commentCount + :delta WHERE e.id = :eventId")
+    int addCommentCount(Long eventId, long delta);
+
+    // Без загрузки события; при увеличении строка не обновляется, если лимит уже исчерпан
+    @Modifying
+    @Query("UPDATE Event e SET e.confirmedRequests = e.confirmedRequests + :delta " +
+            "WHERE e.id = :eventId AND (e.participantLimit = 0 OR :delta < 0 " +
+            "OR e.confirmedRequests + :delta <= e.participantLimit)")
+    int addConfirmedRequests(Long eventId, int delta);
+
+    @Query("SELECT new ru.practicum.event.dto.EventVersionDto(e.version, e.category.version, " +
+            "e.confirmedRequests, e.commentCount) FROM Event e " +
+            "WHERE e.id = :eventId AND e.state = :state")
+    Optional<EventVersionDto> findVersionByIdAndState(Long eventId, EventState state);
 }
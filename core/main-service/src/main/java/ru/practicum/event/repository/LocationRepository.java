@@ -1,12 +1,24 @@
 package ru.practicum.event.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.event.model.Location;
 
-import java.util.Optional;
+import java.util.List;
 
 @Repository
 public interface LocationRepository extends JpaRepository<Location, Long> {
-    Optional<Location> findByLatAndLon(double lat, double lon);
+    List<Location> findAllByGeohashIsNull();
+
+    // Выполняется как выборка, а не @Modifying: RETURNING отдаёт id одной строкой, а executeUpdate вернул бы
+    // только число строк. Сущностей в контексте запрос не меняет; MANDATORY не даёт вызвать его вне
+    // пишущей транзакции вызывающего сервиса
+    @Transactional(propagation = Propagation.MANDATORY)
+    @Query(value = "INSERT INTO locations (lat, lon, geohash) VALUES (:lat, :lon, :geohash) " +
+            "ON CONFLICT (lat, lon) DO UPDATE SET lat = EXCLUDED.lat " +
+            "RETURNING id", nativeQuery = true)
+    Long upsert(double lat, double lon, String geohash);
 }
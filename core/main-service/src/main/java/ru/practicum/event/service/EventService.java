@@ -8,6 +8,8 @@ import ru.practicum.request.dto.ParticipationRequestDto;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface EventService {
 
@@ -33,6 +35,9 @@ public interface EventService {
 
     List<EventFullDto> searchEventsByAdmin(SearchAdminEventsParamDto searchAdminEventsParamDto);
 
+    void exportEventsByAdmin(SearchAdminEventsParamDto searchAdminEventsParamDto,
+                             Consumer<EventFullDto> consumer);
+
     EventFullDto updateEventByAdmin(Long eventId,
                                      UpdateEventAdminRequest updateEventAdminRequest);
 
@@ -40,4 +45,6 @@ public interface EventService {
 
     EventFullDto getPublicEvent(Long eventId,
                                 HttpServletRequest request);
+
+    Optional<EventVersionDto> getPublicEventVersion(Long eventId);
 }
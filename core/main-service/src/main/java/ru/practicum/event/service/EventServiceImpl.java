@@ -1,9 +1,16 @@
 package ru.practicum.event.service;
 
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Join;
 import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -13,14 +20,15 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 import ru.practicum.category.model.Category;
 import ru.practicum.category.repository.CategoryRepository;
+import ru.practicum.compilation.service.CompilationCache;
 import ru.practicum.event.dto.*;
 import ru.practicum.event.mapper.EventMapper;
 import ru.practicum.event.model.Event;
 import ru.practicum.event.model.EventState;
+import ru.practicum.event.model.GeoHash;
 import ru.practicum.event.model.Location;
 import ru.practicum.event.model.StateAction;
 import ru.practicum.event.repository.EventRepository;
-import ru.practicum.event.repository.LocationRepository;
 import ru.practicum.exceptions.ConflictException;
 import ru.practicum.exceptions.NotFoundException;
 import ru.practicum.exceptions.ValidationException;
@@ -32,29 +40,39 @@ import ru.practicum.request.model.RequestStatus;
 import ru.practicum.request.model.RequestStatusEntity;
 import ru.practicum.request.repository.RequestRepository;
 import ru.practicum.request.repository.RequestStatusRepository;
+import ru.practicum.request.service.RequestService;
 import ru.practicum.user.model.User;
 import ru.practicum.user.repository.UserRepository;
 import ru.practicum.validation.EventValidator;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 @Transactional
 public class EventServiceImpl implements EventService {
+    private static final double KM_PER_DEGREE = 111.32;
+    private static final double MIN_COS_LAT = 0.01;
+    private static final int EXPORT_FETCH_SIZE = 500;
     private final EventRepository eventRepository;
     private final UserRepository userRepository;
     private final CategoryRepository categoryRepository;
-    private final LocationRepository locationRepository;
+    private final LocationCache locationCache;
     private final RequestRepository requestRepository;
     private final EventValidator eventValidator;
     private final RequestStatusRepository requestStatusRepository;
+    private final CompilationCache compilationCache;
+    private final EntityManager entityManager;
+    private final RequestService requestService;
 
     @Override
     @Transactional(readOnly = true)
@@ -103,6 +121,8 @@ public class EventServiceImpl implements EventService {
         applyUserUpdates(event, updateDto);
 
         Event updatedEvent = eventRepository.save(event);
+        promoteWaitlistedOnLimitChange(updatedEvent, updateDto.getParticipantLimit());
+        compilationCache.evictByEvent(eventId);
         log.info("Событие успешно обновлено под id {} и дожидается подтверждения", eventId);
         return EventMapper.toFullDto(updatedEvent);
     }
@@ -133,39 +153,73 @@ public class EventServiceImpl implements EventService {
             eventValidator.validateParticipantLimit(event);
         }
 
+        compilationCache.evictByEvent(eventId);
         return processStatusSpecificLogic(event, requests, status);
     }
 
     @Transactional(readOnly = true)
     @Override
     public List<EventFullDto> searchEventsByAdmin(SearchAdminEventsParamDto searchParams) {
+        return eventRepository.findAll(adminSpecification(searchParams), searchParams.getPageRequest()).stream()
+                .map(EventMapper::toFullDto)
+                .collect(Collectors.toList());
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public void exportEventsByAdmin(SearchAdminEventsParamDto searchParams, Consumer<EventFullDto> consumer) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Event> query = cb.createQuery(Event.class);
+        Root<Event> root = query.from(Event.class);
+        root.fetch("category");
+        root.fetch("initiator");
+        root.fetch("location");
+        query.select(root)
+                .where(adminSpecification(searchParams).toPredicate(root, query, cb))
+                .orderBy(cb.asc(root.get("id")));
+
+        // Однонаправленный курсор: строки читаются порциями, контекст персистентности периодически очищается
+        try (Stream<Event> events = entityManager.createQuery(query)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, EXPORT_FETCH_SIZE)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream()) {
+            int count = 0;
+            Iterator<Event> iterator = events.iterator();
+            while (iterator.hasNext()) {
+                consumer.accept(EventMapper.toFullDto(iterator.next()));
+                if (++count % EXPORT_FETCH_SIZE == 0) {
+                    entityManager.clear();
+                }
+            }
+            log.info("Выгружено событий: {}", count);
+        }
+    }
 
-        return eventRepository.findAll((root, query, cb) -> {
-                    List<Predicate> predicates = new ArrayList<>();
+    private Specification<Event> adminSpecification(SearchAdminEventsParamDto searchParams) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
 
-                    // Фильтр по пользователям
-                    if (searchParams.getUsers() != null && !searchParams.getUsers().isEmpty()) {
-                        predicates.add(root.get("initiator").get("id").in(searchParams.getUsers()));
-                    }
+            // Фильтр по пользователям
+            if (searchParams.getUsers() != null && !searchParams.getUsers().isEmpty()) {
+                predicates.add(root.get("initiator").get("id").in(searchParams.getUsers()));
+            }
 
-                    // Фильтр по состояниям
-                    if (searchParams.getEventStates() != null && !searchParams.getEventStates().isEmpty()) {
-                        predicates.add(root.get("state").in(searchParams.getEventStates()));
-                    }
+            // Фильтр по состояниям
+            if (searchParams.getEventStates() != null && !searchParams.getEventStates().isEmpty()) {
+                predicates.add(root.get("state").in(searchParams.getEventStates()));
+            }
 
-                    // Фильтр по категориям
-                    if (searchParams.getCategoriesIds() != null && !searchParams.getCategoriesIds().isEmpty()) {
-                        predicates.add(root.get("category").get("id").in(searchParams.getCategoriesIds()));
-                    }
+            // Фильтр по категориям
+            if (searchParams.getCategoriesIds() != null && !searchParams.getCategoriesIds().isEmpty()) {
+                predicates.add(root.get("category").get("id").in(searchParams.getCategoriesIds()));
+            }
 
-                    // Фильтр по датам
-                    predicates.add(cb.between(root.get("eventDate"), searchParams.getRangeStart(),
-                            searchParams.getRangeEnd()));
+            // Фильтр по датам
+            predicates.add(cb.between(root.get("eventDate"), searchParams.getRangeStart(),
+                    searchParams.getRangeEnd()));
 
-                    return cb.and(predicates.toArray(new Predicate[0]));
-                }, searchParams.getPageRequest()).stream()
-                .map(EventMapper::toFullDto)
-                .collect(Collectors.toList());
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
     }
 
 
@@ -178,6 +232,8 @@ public class EventServiceImpl implements EventService {
         eventValidator.validateAdminEventUpdateState(oldEvent.getState());
         applyAdminUpdates(oldEvent, updateEventAdminRequest);
         Event event = eventRepository.save(oldEvent);
+        promoteWaitlistedOnLimitChange(event, updateEventAdminRequest.getParticipantLimit());
+        compilationCache.evictByEvent(eventId);
         log.info("Событие успешно обновлено администратором");
         return EventMapper.toFullDto(event);
     }
@@ -235,6 +291,11 @@ public class EventServiceImpl implements EventService {
                 predicates.add(cb.gt(root.get("participantLimit"), root.get("confirmedRequests")));
             }
 
+            // Фильтр по местоположению
+            if (searchParams.hasRadius() || searchParams.hasBoundingBox()) {
+                addLocationFilter(root, query, cb, predicates, searchParams);
+            }
+
             return cb.and(predicates.toArray(new Predicate[0]));
         };
 
@@ -252,6 +313,63 @@ public class EventServiceImpl implements EventService {
         return paginateAndMap(events, searchParams.getPageRequest());
     }
 
+    // Кандидаты отбираются по префиксам geohash через индекс, затем точно по прямоугольнику и радиусу
+    private void addLocationFilter(Root<Event> root,
+                                   CriteriaQuery<?> query,
+                                   CriteriaBuilder cb,
+                                   List<Predicate> predicates,
+                                   SearchPublicEventsParamDto searchParams) {
+        double minLat;
+        double maxLat;
+        double minLon;
+        double maxLon;
+        if (searchParams.hasRadius()) {
+            double latDelta = searchParams.getRadius() / KM_PER_DEGREE;
+            double lonDelta = latDelta / Math.max(Math.cos(Math.toRadians(searchParams.getLat())), MIN_COS_LAT);
+            minLat = searchParams.getLat() - latDelta;
+            maxLat = searchParams.getLat() + latDelta;
+            minLon = searchParams.getLon() - lonDelta;
+            maxLon = searchParams.getLon() + lonDelta;
+        } else {
+            minLat = searchParams.getMinLat();
+            maxLat = searchParams.getMaxLat();
+            minLon = searchParams.getMinLon();
+            maxLon = searchParams.getMaxLon();
+        }
+        minLat = Math.max(minLat, -90);
+        maxLat = Math.min(maxLat, 90);
+        minLon = Math.max(minLon, -180);
+        maxLon = Math.min(maxLon, 180);
+
+        Join<Event, Location> location = root.join("location");
+        Expression<Double> lat = location.get("lat");
+        Expression<Double> lon = location.get("lon");
+
+        List<String> cells = GeoHash.coveringCells(minLat, maxLat, minLon, maxLon);
+        if (!cells.isEmpty()) {
+            predicates.add(cb.or(cells.stream()
+                    .map(cell -> cb.like(location.get("geohash"), cell + "%"))
+                    .toArray(Predicate[]::new)));
+        }
+        predicates.add(cb.between(lat, minLat, maxLat));
+        predicates.add(cb.between(lon, minLon, maxLon));
+
+        // Равнопромежуточное приближение расстояния в градусах широты
+        double centerLat = searchParams.hasRadius() ? searchParams.getLat() : (minLat + maxLat) / 2;
+        double centerLon = searchParams.hasRadius() ? searchParams.getLon() : (minLon + maxLon) / 2;
+        Expression<Double> dx = cb.prod(cb.diff(lon, centerLon), Math.cos(Math.toRadians(centerLat)));
+        Expression<Double> dy = cb.diff(lat, centerLat);
+        Expression<Double> squaredDistance = cb.sum(cb.prod(dx, dx), cb.prod(dy, dy));
+
+        if (searchParams.hasRadius()) {
+            double radiusDegrees = searchParams.getRadius() / KM_PER_DEGREE;
+            predicates.add(cb.le(squaredDistance, radiusDegrees * radiusDegrees));
+        }
+        if (searchParams.isSortByDistance() && !Long.class.equals(query.getResultType())) {
+            query.orderBy(cb.asc(squaredDistance), cb.asc(root.get("id")));
+        }
+    }
+
     @Transactional(readOnly = true)
     @Override
     public EventFullDto getPublicEvent(Long eventId,
@@ -263,6 +381,12 @@ public class EventServiceImpl implements EventService {
         return EventMapper.toFullDto(event);
     }
 
+    @Transactional(readOnly = true)
+    @Override
+    public Optional<EventVersionDto> getPublicEventVersion(Long eventId) {
+        return eventRepository.findVersionByIdAndState(eventId, EventState.PUBLISHED);
+    }
+
     private List<EventShortDto> paginateAndMap(List<Event> events, PageRequest pageRequest) {
         List<Event> paginatedEvents = events.stream()
                 .skip(pageRequest.getOffset())
@@ -289,20 +413,26 @@ public class EventServiceImpl implements EventService {
     }
 
     private Location resolveLocation(Location requestLocation) {
-        Location mayBeExistingLocation = null;
-        if (requestLocation.getId() == null) {
-            mayBeExistingLocation = locationRepository
-                    .findByLatAndLon(requestLocation.getLat(), requestLocation.getLon())
-                    .orElseGet(() -> locationRepository.save(requestLocation));
+        return locationCache.resolve(requestLocation.getLat(), requestLocation.getLon());
+    }
+
+    // Без этого ожидающие заявки остались бы в листе ожидания, а новые места заняли бы новые заявки.
+    // Счётчик в событии обновляется только в памяти: колонка confirmed_requests меняется атомарными UPDATE
+    private void promoteWaitlistedOnLimitChange(Event event, Integer newParticipantLimit) {
+        if (newParticipantLimit == null) {
+            return;
         }
-        return mayBeExistingLocation;
+        int promoted = requestService.promoteWaitlisted(event.getId(), event.getRequestModeration());
+        event.setConfirmedRequests(event.getConfirmedRequests() + promoted);
     }
 
     private void applyAdminUpdates(Event event, UpdateEventAdminRequest update) {
         Optional.ofNullable(update.getAnnotation()).ifPresent(event::setAnnotation);
         Optional.ofNullable(update.getDescription()).ifPresent(event::setDescription);
         Optional.ofNullable(update.getEventDate()).ifPresent(event::setEventDate);
-        Optional.ofNullable(update.getLocation()).ifPresent(event::setLocation);
+        Optional.ofNullable(update.getLocation())
+                .map(this::resolveLocation)
+                .ifPresent(event::setLocation);
         Optional.ofNullable(update.getPaid()).ifPresent(event::setPaid);
         Optional.ofNullable(update.getParticipantLimit()).ifPresent(event::setParticipantLimit);
         Optional.ofNullable(update.getRequestModeration()).ifPresent(event::setRequestModeration);
@@ -398,9 +528,15 @@ public class EventServiceImpl implements EventService {
         );
     }
 
+    // Тот же условный UPDATE, что и при автоподтверждении: параллельная заявка не даст превысить лимит
     private void updateEventConfirmedRequests(Event event, int newConfirmations) {
-        event.setConfirmedRequests(event.getConfirmedRequests() + newConfirmations);
-        eventRepository.save(event);
+        if (newConfirmations == 0) {
+            return;
+        }
+        if (eventRepository.addConfirmedRequests(event.getId(), newConfirmations) == 0) {
+            throw new ConflictException("Событие с ID: " + event.getId() + " нет свободных слотов");
+        }
+        compilationCache.evictByEvent(event.getId());
     }
 
     private List<ParticipationRequestDto> mapToParticipationRequestDtoList(List<Request> requests) {
@@ -0,0 +1,68 @@
+package ru.practicum.event.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import ru.practicum.StatsClient;
+import ru.practicum.stats.dto.ViewStatsDto;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class EventViewServiceImpl implements EventViewService {
+    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final String EVENTS_URI_PREFIX = "/events/";
+    private static final int START_SEARCH_DATE_PERIOD = 100;
+    private static final int END_SEARCH_DATE_PERIOD = 300;
+
+    private final StatsClient statsClient;
+
+    @Override
+    public Map<Long, Long> getViews(Collection<Long> eventIds) {
+        if (eventIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        List<String> uris = eventIds.stream()
+                .distinct()
+                .map(id -> EVENTS_URI_PREFIX + id)
+                .toList();
+        String start = LocalDateTime.now().minusYears(START_SEARCH_DATE_PERIOD).format(DATE_TIME_FORMATTER);
+        String end = LocalDateTime.now().plusYears(END_SEARCH_DATE_PERIOD).format(DATE_TIME_FORMATTER);
+
+        List<ViewStatsDto> stats;
+        try {
+            ResponseEntity<List<ViewStatsDto>> response = statsClient.getStats(start, end, uris, true);
+            stats = response.getBody();
+        } catch (StatsClient.StatsServerUnavailableException e) {
+            log.warn("Не удалось получить просмотры событий {}: {}", eventIds, e.getMessage());
+            return Collections.emptyMap();
+        }
+        if (stats == null) {
+            return Collections.emptyMap();
+        }
+
+        Map<Long, Long> views = new HashMap<>();
+        for (ViewStatsDto viewStats : stats) {
+            String uri = viewStats.getUri();
+            if (uri == null || !uri.startsWith(EVENTS_URI_PREFIX)) {
+                continue;
+            }
+            try {
+                Long eventId = Long.parseLong(uri.substring(EVENTS_URI_PREFIX.length()));
+                views.putIfAbsent(eventId, viewStats.getHits());
+            } catch (NumberFormatException e) {
+                log.debug("Пропущен uri статистики {}", uri);
+            }
+        }
+        return views;
+    }
+}
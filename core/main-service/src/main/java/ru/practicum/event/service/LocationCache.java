@@ -0,0 +1,53 @@
+package ru.practicum.event.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import ru.practicum.config.AfterCommit;
+import ru.practicum.event.model.GeoHash;
+import ru.practicum.event.model.Location;
+import ru.practicum.event.repository.LocationRepository;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LocationCache {
+    private final LocationRepository locationRepository;
+    private final Map<Coordinates, Location> locations = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        for (Location location : locationRepository.findAll()) {
+            locations.put(new Coordinates(location.getLat(), location.getLon()), copy(location));
+        }
+        log.info("Загружено {} локаций в кэш", locations.size());
+    }
+
+    // Возвращает отсоединённую локацию, при необходимости создавая её без гонки на UNIQUE (lat, lon)
+    public Location resolve(double lat, double lon) {
+        Coordinates key = new Coordinates(lat, lon);
+        Location cached = locations.get(key);
+        if (cached != null) {
+            return copy(cached);
+        }
+
+        String geohash = GeoHash.encode(lat, lon, GeoHash.MAX_PRECISION);
+        Long id = locationRepository.upsert(lat, lon, geohash);
+        Location location = new Location(id, lat, lon, geohash);
+        AfterCommit.run(() -> locations.putIfAbsent(key, location));
+        return copy(location);
+    }
+
+    // Ключ - точные координаты, как и UNIQUE (lat, lon) в таблице; record сравнивает double по битам
+    private record Coordinates(double lat, double lon) {
+    }
+
+    private static Location copy(Location location) {
+        return new Location(location.getId(), location.getLat(), location.getLon(), location.getGeohash());
+    }
+}
@@ -0,0 +1,32 @@
+package ru.practicum.event.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.event.model.Location;
+import ru.practicum.event.repository.LocationRepository;
+
+import java.util.List;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LocationGeohashInitializer implements ApplicationRunner {
+    private final LocationRepository locationRepository;
+
+    // Заполняет geohash у локаций, сохранённых до появления колонки
+    @Override
+    @Transactional
+    public void run(ApplicationArguments args) {
+        List<Location> locations = locationRepository.findAllByGeohashIsNull();
+        if (locations.isEmpty()) {
+            return;
+        }
+        locations.forEach(Location::updateGeohash);
+        locationRepository.saveAll(locations);
+        log.info("Заполнен geohash у {} локаций", locations.size());
+    }
+}
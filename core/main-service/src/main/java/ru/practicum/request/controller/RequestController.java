@@ -19,6 +19,7 @@ import java.util.List;
 @RequiredArgsConstructor
 @Validated
 public class RequestController {
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
 
     private final RequestService requestService;
 
@@ -30,11 +31,13 @@ public class RequestController {
 
     @PostMapping
     @ResponseStatus(code = HttpStatus.CREATED)
-    public ResponseEntity<ParticipationRequestDto> createParticipationRequest(@PathVariable Long userId,
-                                                                              @RequestParam Long eventId) {
+    public ResponseEntity<ParticipationRequestDto> createParticipationRequest(
+            @PathVariable Long userId,
+            @RequestParam Long eventId,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
         log.info("Запрос на создание заявки на участие пользователя с id {} в событии с id {}", userId, eventId);
         return ResponseEntity.status(HttpStatus.CREATED)
-                .body(requestService.createParticipationRequest(userId, eventId));
+                .body(requestService.createParticipationRequest(userId, eventId, idempotencyKey));
     }
 
     @PatchMapping("/{requestId}/cancel")
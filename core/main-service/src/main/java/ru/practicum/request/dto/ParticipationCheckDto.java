@@ -0,0 +1,27 @@
+package ru.practicum.request.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import ru.practicum.event.model.EventState;
+
+// Всё, что нужно для проверки новой заявки, одним запросом без загрузки графа события
+@Data
+@AllArgsConstructor
+public class ParticipationCheckDto {
+    private Long eventId;
+    private EventState state;
+    private Long initiatorId;
+    private Integer participantLimit;
+    private Boolean requestModeration;
+    private Integer confirmedRequests;
+    private Long existingRequests;
+    private Long requesters;
+
+    public boolean hasExistingRequest() {
+        return existingRequests > 0;
+    }
+
+    public boolean requesterExists() {
+        return requesters > 0;
+    }
+}
@@ -0,0 +1,37 @@
+package ru.practicum.request.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// Исходный ответ на создание заявки, повторный запрос с тем же ключом получает его без проверок.
+// Пока заявка создаётся, строка захвачена транзакцией и поля ответа пусты
+@Entity
+@Table(name = "idempotency_keys")
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class IdempotencyKey {
+
+    @EmbeddedId
+    private IdempotencyKeyId id;
+
+    @Column(name = "event_id", nullable = false)
+    private Long eventId;
+
+    @Column(name = "request_id")
+    private Long requestId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status")
+    private RequestStatus status;
+
+    @Column(name = "request_created")
+    private LocalDateTime requestCreated;
+
+    @Column(name = "created", nullable = false)
+    private LocalDateTime created;
+}
@@ -18,7 +18,9 @@ public class Request {
 
     @Column(name = "id")
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "participation_requests_seq")
+    @SequenceGenerator(name = "participation_requests_seq", sequenceName = "participation_requests_id_seq",
+            allocationSize = 50)
     private Long id;
 
     @ManyToOne
@@ -0,0 +1,36 @@
+package ru.practicum.request.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import ru.practicum.request.model.IdempotencyKey;
+import ru.practicum.request.model.IdempotencyKeyId;
+import ru.practicum.request.model.RequestStatus;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, IdempotencyKeyId> {
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyKey k WHERE k.created < :before")
+    int deleteCreatedBefore(LocalDateTime before);
+
+    @Modifying(clearAutomatically = true)
+    @Query(value = "DELETE FROM idempotency_keys " +
+            "WHERE user_id = :userId AND idempotency_key = :key AND created < :before", nativeQuery = true)
+    int deleteExpiredKey(Long userId, String key, LocalDateTime before);
+
+    // Вставка ждёт фиксации или отката параллельной транзакции с тем же ключом, при конфликте ничего не делает
+    @Modifying(clearAutomatically = true)
+    @Query(value = "INSERT INTO idempotency_keys (user_id, idempotency_key, event_id, created) " +
+            "VALUES (:userId, :key, :eventId, :created) " +
+            "ON CONFLICT (user_id, idempotency_key) DO NOTHING", nativeQuery = true)
+    int insertPlaceholder(Long userId, String key, Long eventId, LocalDateTime created);
+
+    @Modifying
+    @Query("UPDATE IdempotencyKey k SET k.requestId = :requestId, k.status = :status, " +
+            "k.requestCreated = :requestCreated WHERE k.id = :id")
+    int complete(IdempotencyKeyId id, Long requestId, RequestStatus status, LocalDateTime requestCreated);
+}
@@ -1,8 +1,12 @@
 package ru.practicum.request.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import ru.practicum.request.dto.ParticipationCheckDto;
 import ru.practicum.request.model.Request;
+import ru.practicum.request.model.RequestStatusEntity;
 
 import java.util.List;
 import java.util.Optional;
@@ -18,4 +22,22 @@ public interface RequestRepository extends JpaRepository<Request, Long> {
     List<Request> findByEventId(Long eventId);
 
     List<Request> findRequestByIdIn(List<Long> requestsId);
+
+    @Query("SELECT new ru.practicum.request.dto.ParticipationCheckDto(e.id, e.state, e.initiator.id, " +
+            "e.participantLimit, e.requestModeration, e.confirmedRequests, " +
+            "(SELECT COUNT(r) FROM Request r WHERE r.requester.id = :userId AND r.event.id = e.id), " +
+            "(SELECT COUNT(u) FROM User u WHERE u.id = :userId)) " +
+            "FROM Event e WHERE e.id = :eventId")
+    Optional<ParticipationCheckDto> findParticipationCheck(Long userId, Long eventId);
+
+    // Голова листа ожидания по индексу (event_id, status_id, created, id);
+    // SKIP LOCKED разводит одновременные отмены по разным заявкам
+    @Query(value = "SELECT r.id FROM participation_requests r " +
+            "WHERE r.event_id = :eventId AND r.status_id = :statusId " +
+            "ORDER BY r.created, r.id LIMIT 1 FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    Optional<Long> findFirstWaitingIdForUpdate(Long eventId, Long statusId);
+
+    @Modifying
+    @Query("UPDATE Request r SET r.status = :status WHERE r.id = :requestId")
+    int updateStatus(Long requestId, RequestStatusEntity status);
 }
@@ -0,0 +1,128 @@
+package ru.practicum.request.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.config.AfterCommit;
+import ru.practicum.exceptions.ConflictException;
+import ru.practicum.exceptions.ValidationException;
+import ru.practicum.request.dto.ParticipationRequestDto;
+import ru.practicum.request.model.IdempotencyKey;
+import ru.practicum.request.model.IdempotencyKeyId;
+import ru.practicum.request.repository.IdempotencyKeyRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+// Ключи идемпотентности: таблица с TTL и ограниченный LRU-кэш перед ней
+@Slf4j
+@Component
+public class IdempotencyStore {
+    private static final int MAX_KEY_LENGTH = 64;
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final Duration ttl;
+    private final Map<IdempotencyKeyId, IdempotencyKey> recent;
+
+    public IdempotencyStore(IdempotencyKeyRepository idempotencyKeyRepository,
+                            @Value("${idempotency.ttl-hours:24}") long ttlHours,
+                            @Value("${idempotency.cache-size:10000}") int cacheSize) {
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.ttl = Duration.ofHours(ttlHours);
+        this.recent = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<IdempotencyKeyId, IdempotencyKey> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    public Optional<ParticipationRequestDto> find(Long userId, String key, Long eventId) {
+        IdempotencyKeyId id = toId(userId, key);
+        IdempotencyKey stored = getRecent(id);
+        if (stored == null) {
+            stored = idempotencyKeyRepository.findById(id).orElse(null);
+            if (stored == null || isExpired(stored) || stored.getRequestId() == null) {
+                return Optional.empty();
+            }
+            putRecent(stored);
+        }
+        if (!stored.getEventId().equals(eventId)) {
+            throw new ConflictException("Ключ идемпотентности уже использован для заявки на событие с ID: "
+                    + stored.getEventId());
+        }
+        return Optional.of(toDto(stored));
+    }
+
+    // Вызывается в транзакции создания заявки до любых проверок. Параллельный запрос с тем же ключом
+    // ждёт её завершения на вставке; false - ключ уже занят, и ответ можно прочитать через find
+    public boolean claim(Long userId, String key, Long eventId) {
+        IdempotencyKeyId id = toId(userId, key);
+        LocalDateTime now = LocalDateTime.now();
+        idempotencyKeyRepository.deleteExpiredKey(id.getUserId(), id.getKey(), now.minus(ttl));
+        return idempotencyKeyRepository.insertPlaceholder(id.getUserId(), id.getKey(), eventId, now) > 0;
+    }
+
+    // Заполняет захваченный ключ: при откате транзакции он освобождается вместе с заявкой
+    public void complete(Long userId, String key, ParticipationRequestDto response) {
+        IdempotencyKeyId id = toId(userId, key);
+        idempotencyKeyRepository.complete(id, response.getId(), response.getStatus(), response.getCreated());
+        IdempotencyKey stored = IdempotencyKey.builder()
+                .id(id)
+                .eventId(response.getEvent())
+                .requestId(response.getId())
+                .status(response.getStatus())
+                .requestCreated(response.getCreated())
+                .created(LocalDateTime.now())
+                .build();
+        AfterCommit.run(() -> putRecent(stored));
+    }
+
+    @Scheduled(fixedDelayString = "${idempotency.cleanup-interval-ms:600000}")
+    @Transactional
+    public void deleteExpired() {
+        int deleted = idempotencyKeyRepository.deleteCreatedBefore(LocalDateTime.now().minus(ttl));
+        if (deleted > 0) {
+            log.info("Удалено просроченных ключей идемпотентности: {}", deleted);
+        }
+    }
+
+    private IdempotencyKeyId toId(Long userId, String key) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new ValidationException("Idempotency-Key должен содержать от 1 до " + MAX_KEY_LENGTH + " символов");
+        }
+        return new IdempotencyKeyId(userId, key);
+    }
+
+    private boolean isExpired(IdempotencyKey stored) {
+        return stored.getCreated().isBefore(LocalDateTime.now().minus(ttl));
+    }
+
+    private synchronized IdempotencyKey getRecent(IdempotencyKeyId id) {
+        IdempotencyKey stored = recent.get(id);
+        if (stored != null && isExpired(stored)) {
+            recent.remove(id);
+            return null;
+        }
+        return stored;
+    }
+
+    private synchronized void putRecent(IdempotencyKey stored) {
+        recent.put(stored.getId(), stored);
+    }
+
+    private ParticipationRequestDto toDto(IdempotencyKey stored) {
+        return ParticipationRequestDto.builder()
+                .id(stored.getRequestId())
+                .requester(stored.getId().getUserId())
+                .event(stored.getEventId())
+                .status(stored.getStatus())
+                .created(stored.getRequestCreated())
+                .build();
+    }
+}
@@ -9,8 +9,11 @@ public interface RequestService {
     List<ParticipationRequestDto> getUserRequests(Long userId);
 
     ParticipationRequestDto createParticipationRequest(Long userId,
-                                                       Long eventId);
+                                                       Long eventId,
+                                                       String idempotencyKey);
 
     ParticipationRequestDto cancelParticipationRequest(Long userId,
                                                        Long requestId);
+
+    int promoteWaitlisted(Long eventId, boolean requestModeration);
 }
@@ -3,12 +3,17 @@ package ru.practicum.request.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import ru.practicum.event.model.Event;
+import ru.practicum.compilation.service.CompilationCache;
 import ru.practicum.event.repository.EventRepository;
+import ru.practicum.exceptions.ConflictException;
 import ru.practicum.exceptions.NotFoundException;
 import ru.practicum.exceptions.ValidationException;
+import ru.practicum.request.dto.ParticipationCheckDto;
 import ru.practicum.request.dto.ParticipationRequestDto;
 import ru.practicum.request.mapper.RequestMapper;
 import ru.practicum.request.model.Request;
@@ -16,12 +21,12 @@ import ru.practicum.request.model.RequestStatus;
 import ru.practicum.request.model.RequestStatusEntity;
 import ru.practicum.request.repository.RequestRepository;
 import ru.practicum.request.repository.RequestStatusRepository;
-import ru.practicum.user.model.User;
 import ru.practicum.user.repository.UserRepository;
 import ru.practicum.validation.RequestValidator;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
@@ -29,11 +34,18 @@ import java.util.stream.Collectors;
 @Slf4j
 @Transactional
 public class RequestServiceImpl implements RequestService {
+    private static final String UNIQUE_REQUEST_CONSTRAINT = "uq_request";
+
     private final RequestRepository requestRepository;
     private final RequestStatusRepository requestStatusRepository;
     private final UserRepository userRepository;
     private final EventRepository eventRepository;
     private final RequestValidator requestValidator;
+    private final CompilationCache compilationCache;
+    private final IdempotencyStore idempotencyStore;
+
+    @Value("${requests.waitlist.enabled:false}")
+    private boolean waitlistEnabled;
 
     @Transactional(readOnly = true)
     @Override
@@ -45,47 +57,118 @@ public class RequestServiceImpl implements RequestService {
     }
 
     @Override
-    public ParticipationRequestDto createParticipationRequest(Long userId, Long eventId) {
-        final User user = getUserById(userId);
-        final Event event = getEventById(eventId);
+    public ParticipationRequestDto createParticipationRequest(Long userId, Long eventId, String idempotencyKey) {
+        if (idempotencyKey != null) {
+            Optional<ParticipationRequestDto> previous = idempotencyStore.find(userId, idempotencyKey, eventId);
+            if (previous.isPresent()) {
+                log.info("Повторный запрос с ключом идемпотентности {}, возвращается заявка с ID: {}",
+                        idempotencyKey, previous.get().getId());
+                return previous.get();
+            }
+            if (!idempotencyStore.claim(userId, idempotencyKey, eventId)) {
+                log.info("Запрос с ключом идемпотентности {} дождался параллельного запроса с тем же ключом",
+                        idempotencyKey);
+                return idempotencyStore.find(userId, idempotencyKey, eventId)
+                        .orElseThrow(() -> new ConflictException("Запрос с ключом идемпотентности "
+                                + idempotencyKey + " ещё выполняется"));
+            }
+        }
 
-        requestValidator.validateRequestCreation(user, event);
+        final ParticipationCheckDto check = getParticipationCheck(userId, eventId);
+        final boolean waitlisted = isWaitlistEnabled(check.getRequestModeration()) && isEventFull(check);
+        requestValidator.validateRequestCreation(userId, check, waitlisted);
 
-        final Request request = buildNewRequest(user, event);
-        determineInitialStatus(event, request);
+        final Request request = buildNewRequest(userId, eventId);
+        if (!waitlisted) {
+            determineInitialStatus(check, request);
+        }
 
-        final Request savedRequest = requestRepository.save(request);
-        updateEventStatistics(event, request.getStatus().getName());
+        final Request savedRequest = insertRequest(userId, eventId, request);
+        updateEventStatistics(eventId, request, check);
 
         log.info("Заявка на участие сохранена со статусом с ID: {} и статусом: {}",
                 savedRequest.getId(), savedRequest.getStatus());
-        return RequestMapper.toRequestDto(savedRequest);
+        ParticipationRequestDto result = RequestMapper.toRequestDto(savedRequest);
+        if (idempotencyKey != null) {
+            idempotencyStore.complete(userId, idempotencyKey, result);
+        }
+        return result;
     }
 
     @Override
     public ParticipationRequestDto cancelParticipationRequest(Long userId, Long requestId) {
-        final User user = getUserById(userId);
+        checkUserExists(userId);
         final Request request = getRequestById(requestId);
 
-        requestValidator.validateRequestOwnership(user, request);
+        requestValidator.validateRequestOwnership(userId, request);
+        final RequestStatus previousStatus = request.getStatus().getName();
         updateRequestStatus(request, RequestStatus.CANCELED);
 
-        if (request.getStatus().getName() == RequestStatus.CONFIRMED) {
-            adjustEventConfirmedRequests(request.getEvent(), -1);
+        if (previousStatus == RequestStatus.CONFIRMED) {
+            final Long eventId = request.getEvent().getId();
+            adjustEventConfirmedRequests(eventId, -1);
+            if (isWaitlistEnabled(request.getEvent().getRequestModeration())) {
+                promoteFromWaitlist(eventId);
+            }
         }
 
         log.info("Заявка на участие с id = {} отменена пользователем ID: {}", requestId, userId);
         return RequestMapper.toRequestDto(request);
     }
 
-    private User getUserById(Long userId) {
-        return userRepository.findById(userId)
-                .orElseThrow(() -> new NotFoundException("Не найден пользователя с ID: " + userId));
+    // Вызывается при увеличении лимита участников: новые места в той же транзакции получают
+    // ожидающие заявки в порядке подачи, раньше чем их займут новые заявки
+    @Override
+    public int promoteWaitlisted(Long eventId, boolean requestModeration) {
+        if (!isWaitlistEnabled(requestModeration)) {
+            return 0;
+        }
+        int promoted = 0;
+        while (promoteFromWaitlist(eventId)) {
+            promoted++;
+        }
+        if (promoted > 0) {
+            compilationCache.evictByEvent(eventId);
+            log.info("Из листа ожидания события с ID: {} подтверждено заявок: {}", eventId, promoted);
+        }
+        return promoted;
+    }
+
+    private void checkUserExists(Long userId) {
+        if (!userRepository.existsById(userId)) {
+            throw new NotFoundException("Не найден пользователя с ID: " + userId);
+        }
     }
 
-    private Event getEventById(Long eventId) {
-        return eventRepository.findById(eventId)
+    private ParticipationCheckDto getParticipationCheck(Long userId, Long eventId) {
+        ParticipationCheckDto check = requestRepository.findParticipationCheck(userId, eventId)
                 .orElseThrow(() -> new NotFoundException("Не найдено событие с ID: " + eventId));
+        if (!check.requesterExists()) {
+            throw new NotFoundException("Не найден пользователя с ID: " + userId);
+        }
+        return check;
+    }
+
+    // Повторная заявка, прошедшая проверку одновременно с первой, отсекается ограничением uq_request
+    private Request insertRequest(Long userId, Long eventId, Request request) {
+        try {
+            return requestRepository.saveAndFlush(request);
+        } catch (DataIntegrityViolationException e) {
+            if (isUniqueRequestViolation(e)) {
+                throw requestValidator.duplicateRequest(userId, eventId);
+            }
+            throw e;
+        }
+    }
+
+    // Остальные нарушения (например, внешний ключ на удалённого пользователя) не являются повторной заявкой
+    private static boolean isUniqueRequestViolation(DataIntegrityViolationException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation) {
+                return UNIQUE_REQUEST_CONSTRAINT.equalsIgnoreCase(violation.getConstraintName());
+            }
+        }
+        return false;
     }
 
     private Request getRequestById(Long requestId) {
@@ -98,47 +181,77 @@ public class RequestServiceImpl implements RequestService {
                 .orElseThrow(() -> new NotFoundException("Не найден статус: " + newStatus.name()));
     }
 
-    private Request buildNewRequest(User user, Event event) {
+    private Request buildNewRequest(Long userId, Long eventId) {
         RequestStatusEntity requestStatusEntity = getRequestStatusEntityByRequestStatus(RequestStatus.PENDING);
         return Request.builder()
-                .requester(user)
-                .event(event)
+                .requester(userRepository.getReferenceById(userId))
+                .event(eventRepository.getReferenceById(eventId))
                 .created(LocalDateTime.now())
                 .status(requestStatusEntity)
                 .build();
     }
 
-    private void determineInitialStatus(Event event, Request request) {
-        if (shouldAutoConfirm(event)) {
+    private void determineInitialStatus(ParticipationCheckDto check, Request request) {
+        if (shouldAutoConfirm(check)) {
             request.setStatus(getRequestStatusEntityByRequestStatus(RequestStatus.CONFIRMED));
-        } else if (isEventFull(event)) {
+        } else if (isEventFull(check)) {
             request.setStatus(getRequestStatusEntityByRequestStatus(RequestStatus.REJECTED));
         }
     }
 
-    private boolean shouldAutoConfirm(Event event) {
-        return event.getParticipantLimit() == 0 ||
-                (!event.getRequestModeration() && hasAvailableSlots(event));
+    private boolean shouldAutoConfirm(ParticipationCheckDto check) {
+        return check.getParticipantLimit() == 0 ||
+                (!check.getRequestModeration() && hasAvailableSlots(check));
     }
 
-    private boolean isEventFull(Event event) {
-        return event.getParticipantLimit() > 0 &&
-                event.getConfirmedRequests() >= event.getParticipantLimit();
+    private boolean isEventFull(ParticipationCheckDto check) {
+        return check.getParticipantLimit() > 0 &&
+                check.getConfirmedRequests() >= check.getParticipantLimit();
     }
 
-    private boolean hasAvailableSlots(Event event) {
-        return event.getConfirmedRequests() < event.getParticipantLimit();
+    private boolean hasAvailableSlots(ParticipationCheckDto check) {
+        return check.getConfirmedRequests() < check.getParticipantLimit();
     }
 
-    private void updateEventStatistics(Event event, RequestStatus status) {
-        if (status == RequestStatus.CONFIRMED) {
-            adjustEventConfirmedRequests(event, 1);
+    private void updateEventStatistics(Long eventId, Request request, ParticipationCheckDto check) {
+        if (request.getStatus().getName() != RequestStatus.CONFIRMED) {
+            return;
+        }
+        if (!isWaitlistEnabled(check.getRequestModeration())) {
+            adjustEventConfirmedRequests(eventId, 1);
+            return;
+        }
+        if (eventRepository.addConfirmedRequests(eventId, 1) == 0) {
+            // Последнее место заняли параллельно: заявка остаётся в листе ожидания
+            request.setStatus(getRequestStatusEntityByRequestStatus(RequestStatus.PENDING));
+            return;
         }
+        compilationCache.evictByEvent(eventId);
     }
 
-    private void adjustEventConfirmedRequests(Event event, int delta) {
-        event.setConfirmedRequests(event.getConfirmedRequests() + delta);
-        eventRepository.save(event);
+    // Лист ожидания только для событий без модерации: в остальных заявки подтверждает инициатор
+    private boolean isWaitlistEnabled(Boolean requestModeration) {
+        return waitlistEnabled && !requestModeration;
+    }
+
+    // Освободившееся место в той же транзакции отдаётся самой старой ожидающей заявке
+    private boolean promoteFromWaitlist(Long eventId) {
+        Long pendingStatusId = getRequestStatusEntityByRequestStatus(RequestStatus.PENDING).getId();
+        Optional<Long> nextId = requestRepository.findFirstWaitingIdForUpdate(eventId, pendingStatusId);
+        if (nextId.isEmpty() || eventRepository.addConfirmedRequests(eventId, 1) == 0) {
+            return false;
+        }
+        requestRepository.updateStatus(nextId.get(), getRequestStatusEntityByRequestStatus(RequestStatus.CONFIRMED));
+        log.info("Заявка с ID: {} переведена из листа ожидания в подтверждённые", nextId.get());
+        return true;
+    }
+
+    // Атомарный UPDATE: две одновременные заявки не могут занять последнее место вдвоём
+    private void adjustEventConfirmedRequests(Long eventId, int delta) {
+        if (eventRepository.addConfirmedRequests(eventId, delta) == 0) {
+            throw requestValidator.noFreeSlots(eventId);
+        }
+        compilationCache.evictByEvent(eventId);
     }
 
     private void updateRequestStatus(Request request, RequestStatus newStatus) {
@@ -1,66 +1,67 @@
 package ru.practicum.validation;
 
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
-import ru.practicum.event.model.Event;
 import ru.practicum.event.model.EventState;
 import ru.practicum.exceptions.ConflictException;
 import ru.practicum.exceptions.ValidationException;
+import ru.practicum.request.dto.ParticipationCheckDto;
 import ru.practicum.request.model.Request;
-import ru.practicum.request.repository.RequestRepository;
-import ru.practicum.user.model.User;
 
 @Slf4j
 @Component
 public class RequestValidator {
 
-    private final RequestRepository requestRepository;
-
-    @Autowired
-    public RequestValidator(RequestRepository requestRepository) {
-        this.requestRepository = requestRepository;
-    }
-
-    public void validateRequestCreation(User user, Event event) {
-        checkEventState(event);
-        checkEventOwnership(user, event);
-        checkDuplicateRequest(user.getId(), event.getId());
-        checkEventCapacity(event);
+    // При включённом листе ожидания заявка на заполненное событие не отклоняется, а встаёт в очередь
+    public void validateRequestCreation(Long userId, ParticipationCheckDto check, boolean waitlisted) {
+        checkEventState(check);
+        checkEventOwnership(userId, check);
+        checkDuplicateRequest(userId, check);
+        if (!waitlisted) {
+            checkEventCapacity(check);
+        }
     }
 
-    private void checkEventState(Event event) {
-        if (!event.getState().name().equals(EventState.PUBLISHED.name())) {
+    private void checkEventState(ParticipationCheckDto check) {
+        if (check.getState() != EventState.PUBLISHED) {
             throw new ConflictException("Нельзя подавать заявку на неопубликованное мероприятие");
         }
     }
 
-    private void checkEventOwnership(User user, Event event) {
-        if (event.getInitiator().equals(user)) {
+    private void checkEventOwnership(Long userId, ParticipationCheckDto check) {
+        if (check.getInitiatorId().equals(userId)) {
             throw new ConflictException("Пользователь не может подать заяку на участие в своем же мероприятии");
         }
     }
 
-    private void checkDuplicateRequest(Long userId, Long eventId) {
-        requestRepository.findByRequesterIdAndEventId(userId, eventId)
-                .ifPresent(req -> {
-                    throw new ConflictException("Пользователь: " +
-                            userId + " уже подал заявку на участи в событии: " + eventId);
-                });
+    // Гонку двух одновременных заявок закрывает ограничение uq_request при вставке
+    private void checkDuplicateRequest(Long userId, ParticipationCheckDto check) {
+        if (check.hasExistingRequest()) {
+            throw duplicateRequest(userId, check.getEventId());
+        }
     }
 
-    public void validateRequestOwnership(User user, Request request) {
-        if (!request.getRequester().equals(user)) {
+    public ConflictException duplicateRequest(Long userId, Long eventId) {
+        return new ConflictException("Пользователь: " +
+                userId + " уже подал заявку на участи в событии: " + eventId);
+    }
+
+    public void validateRequestOwnership(Long userId, Request request) {
+        if (!request.getRequester().getId().equals(userId)) {
             throw new ValidationException("Только пользователь подавший заявку может отменить ее. " +
-                    "Пользователь ID: " + user.getId() +
+                    "Пользователь ID: " + userId +
                     "Заявка с ID: " + request.getId());
         }
     }
 
-    private void checkEventCapacity(Event event) {
-        if (event.getParticipantLimit() > 0 &&
-                event.getConfirmedRequests() >= event.getParticipantLimit()) {
-            throw new ConflictException("Событие с ID: " + event.getId() + " нет свободных слотов");
+    private void checkEventCapacity(ParticipationCheckDto check) {
+        if (check.getParticipantLimit() > 0 &&
+                check.getConfirmedRequests() >= check.getParticipantLimit()) {
+            throw noFreeSlots(check.getEventId());
         }
     }
+
+    public ConflictException noFreeSlots(Long eventId) {
+        return new ConflictException("Событие с ID: " + eventId + " нет свободных слотов");
+    }
 }
@@ -1,9 +1,11 @@
 -- Таблица категорий
 CREATE TABLE IF NOT EXISTS categories (
     id BIGSERIAL PRIMARY KEY,
-    name VARCHAR(255) NOT NULL UNIQUE
+    name VARCHAR(255) NOT NULL UNIQUE,
+    version BIGINT NOT NULL DEFAULT 0
 );
 CREATE INDEX IF NOT EXISTS idx_categories_name ON categories(name);
+ALTER TABLE categories ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
 
 -- Таблица пользователей
 CREATE TABLE IF NOT EXISTS users (
@@ -22,6 +24,8 @@ CREATE TABLE IF NOT EXISTS locations (
     UNIQUE (lat, lon)
 );
 CREATE INDEX IF NOT EXISTS idx_locations_lat_lon ON locations(lat, lon);
+ALTER TABLE locations ADD COLUMN IF NOT EXISTS geohash VARCHAR(12);
+CREATE INDEX IF NOT EXISTS idx_locations_geohash ON locations(geohash varchar_pattern_ops);
 
 -- Таблица состояний событий
 --CREATE TABLE IF NOT EXISTS event_states (
@@ -46,8 +50,12 @@ CREATE TABLE IF NOT EXISTS events (
     location_id INT NOT NULL REFERENCES locations(id),
     request_moderation BOOLEAN NOT NULL DEFAULT TRUE,
     published_on TIMESTAMP WITHOUT TIME ZONE,
-    confirmed_requests INTEGER NOT NULL
+    confirmed_requests INTEGER NOT NULL,
+    comment_count BIGINT NOT NULL DEFAULT 0,
+    version BIGINT NOT NULL DEFAULT 0
 );
+ALTER TABLE events ADD COLUMN IF NOT EXISTS comment_count BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE events ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
 
 -- Индексы для ускорения поиска событий
 CREATE INDEX IF NOT EXISTS idx_events_category_id ON events(category_id);
@@ -61,9 +69,12 @@ CREATE INDEX IF NOT EXISTS idx_events_paid ON events(paid);
 CREATE TABLE IF NOT EXISTS compilations (
     id BIGSERIAL PRIMARY KEY,
     title VARCHAR(255) NOT NULL,
-    pinned BOOLEAN NOT NULL DEFAULT FALSE
+    pinned BOOLEAN NOT NULL DEFAULT FALSE,
+    version BIGINT NOT NULL DEFAULT 0
 );
+ALTER TABLE compilations ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
 CREATE INDEX IF NOT EXISTS idx_compilations_pinned ON compilations(pinned);
+CREATE INDEX IF NOT EXISTS idx_compilations_pinned_id ON compilations(pinned, id);
 
 -- Таблица связи подборки и события
 CREATE TABLE IF NOT EXISTS compilation_events (
@@ -89,11 +100,31 @@ CREATE TABLE IF NOT EXISTS participation_requests (
 
     CONSTRAINT uq_request UNIQUE (requester_id, event_id)
 );
+-- Шаг последовательности совпадает с allocationSize пулового оптимизатора Hibernate
+ALTER SEQUENCE participation_requests_id_seq INCREMENT BY 50;
 
 CREATE INDEX IF NOT EXISTS idx_requests_requester_id ON participation_requests(requester_id);
 CREATE INDEX IF NOT EXISTS idx_requests_event_id ON participation_requests(event_id);
 CREATE INDEX IF NOT EXISTS idx_requests_status_id ON participation_requests(status_id);
 CREATE INDEX IF NOT EXISTS idx_requests_created ON participation_requests(created);
+-- Очередь листа ожидания события в порядке подачи
+CREATE INDEX IF NOT EXISTS idx_requests_event_status_created ON participation_requests(event_id, status_id, created, id);
+
+-- Ключи идемпотентности создания заявок с исходным ответом; просроченные удаляются по расписанию
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    user_id BIGINT NOT NULL,
+    idempotency_key VARCHAR(64) NOT NULL,
+    event_id BIGINT NOT NULL,
+    request_id BIGINT,
+    status VARCHAR(20),
+    request_created TIMESTAMP,
+    created TIMESTAMP NOT NULL DEFAULT now(),
+    PRIMARY KEY (user_id, idempotency_key)
+);
+ALTER TABLE idempotency_keys ALTER COLUMN request_id DROP NOT NULL;
+ALTER TABLE idempotency_keys ALTER COLUMN status DROP NOT NULL;
+ALTER TABLE idempotency_keys ALTER COLUMN request_created DROP NOT NULL;
+CREATE INDEX IF NOT EXISTS idx_idempotency_keys_created ON idempotency_keys(created);
 
 INSERT INTO request_statuses (name) VALUES
 ('PENDING'),
@@ -108,7 +139,16 @@ CREATE TABLE IF NOT EXISTS comments (
     author_id BIGINT NOT NULL REFERENCES users (id),
     created TIMESTAMP WITHOUT TIME ZONE NOT NULL
 );
+ALTER SEQUENCE comments_id_seq INCREMENT BY 50;
 CREATE INDEX IF NOT EXISTS idx_comments_text ON comments(text);
-CREATE INDEX IF NOT EXISTS idx_comments_event_id ON comments(event_id);
+DROP INDEX IF EXISTS idx_comments_event_id;
+CREATE INDEX IF NOT EXISTS idx_comments_event_created_id ON comments(event_id, created DESC, id DESC);
 CREATE INDEX IF NOT EXISTS idx_comments_author_id ON comments(author_id);
 CREATE INDEX IF NOT EXISTS idx_comments_created ON comments(created);
+
+-- Сверка денормализованного счётчика комментариев, включая события, у которых комментариев не осталось
+UPDATE events e SET comment_count = s.cnt
+FROM (SELECT ev.id, COALESCE(c.cnt, 0) AS cnt
+      FROM events ev
+      LEFT JOIN (SELECT event_id, COUNT(*) AS cnt FROM comments GROUP BY event_id) c ON c.event_id = ev.id) s
+WHERE e.id = s.id AND e.comment_count <> s.cnt;
@@ -0,0 +1,51 @@
+package ru.practicum.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExportDataSourceTest {
+    private HikariDataSource pool;
+    private ExportDataSource dataSource;
+
+    @BeforeEach
+    void setUp() {
+        pool = new HikariDataSource();
+        pool.setJdbcUrl("jdbc:h2:mem:export;DB_CLOSE_DELAY=-1");
+        pool.setPoolName("main");
+        pool.setLeakDetectionThreshold(10_000);
+        dataSource = new ExportDataSource(pool, 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dataSource.close();
+    }
+
+    @Test
+    void regularConnectionsComeFromMainPool() throws Exception {
+        try (Connection ignored = dataSource.getConnection()) {
+            assertThat(pool.getHikariPoolMXBean().getActiveConnections()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void exportConnectionsBypassMainPool() throws Exception {
+        dataSource.getConnection().close();
+        boolean valid = ExportDataSource.run(() -> {
+            try (Connection connection = dataSource.getConnection()) {
+                assertThat(pool.getHikariPoolMXBean().getActiveConnections()).isZero();
+                return connection.isValid(1);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        assertThat(valid).isTrue();
+    }
+}
@@ -0,0 +1,90 @@
+package ru.practicum.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReplicaRoutingDataSourceTest {
+    private HikariDataSource primary;
+    private HikariDataSource replica;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readOnlyTransaction;
+    private ReadYourWritesFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        primary = database("primary");
+        replica = database("replica");
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(
+                new ReplicaDataSourceConfig().dataSource(primary, replica));
+        jdbcTemplate = new JdbcTemplate(transactionManager.getDataSource());
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        filter = new ReadYourWritesFilter(60_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        primary.close();
+        replica.close();
+    }
+
+    @Test
+    void readOnlyTransactionGoesToReplica() {
+        assertThat(readOnlyDatabase()).isEqualTo("replica");
+        assertThat(currentDatabase()).isEqualTo("primary");
+    }
+
+    @Test
+    void readAfterWriteOfSameClientGoesToPrimary() throws Exception {
+        assertThat(handle("POST", "10.0.0.1")).isEqualTo("primary");
+
+        assertThat(handle("GET", "10.0.0.1")).isEqualTo("primary");
+        assertThat(handle("GET", "10.0.0.2")).isEqualTo("replica");
+        assertThat(readOnlyDatabase()).isEqualTo("replica");
+    }
+
+    @Test
+    void clientIsIdentifiedByAddressAppendedByGateway() throws Exception {
+        handle("POST", "10.0.0.1");
+
+        assertThat(handle("GET", "10.0.0.1, 10.0.0.2")).isEqualTo("replica");
+        assertThat(handle("GET", "10.0.0.2, 10.0.0.1")).isEqualTo("primary");
+    }
+
+    // Запрос проходит через фильтр, чтение внутри выполняется в read-only транзакции
+    private String handle(String method, String forwardedFor) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, "/events");
+        request.addHeader("X-Forwarded-For", forwardedFor);
+        AtomicReference<String> database = new AtomicReference<>();
+        filter.doFilter(request, new MockHttpServletResponse(),
+                (req, res) -> database.set(readOnlyDatabase()));
+        return database.get();
+    }
+
+    private String readOnlyDatabase() {
+        return readOnlyTransaction.execute(status -> currentDatabase());
+    }
+
+    private String currentDatabase() {
+        return jdbcTemplate.queryForObject("SELECT name FROM marker", String.class);
+    }
+
+    private static HikariDataSource database(String name) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        dataSource.setPoolName(name);
+        new JdbcTemplate(dataSource).execute("CREATE TABLE IF NOT EXISTS marker AS SELECT '" + name + "' AS name");
+        return dataSource;
+    }
+}
@@ -0,0 +1,156 @@
+package ru.practicum.event.dto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import ru.practicum.category.dto.CategoryDto;
+import ru.practicum.compilation.dto.CompilationDto;
+import ru.practicum.event.model.EventState;
+import ru.practicum.event.model.Location;
+import ru.practicum.user.dto.UserDto;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Размер типичных страниц до и после gzip и время сериализации и сжатия; передача оценивается для канала 10 Мбит/с
+@Slf4j
+@Tag("benchmark")
+class EventPageCompressionBenchmarkTest {
+    private static final int PAGE_SIZE = 10;
+    private static final int ROUNDS = 200;
+    private static final long LINK_BITS_PER_SECOND = 10_000_000L;
+    private static final String[] WORDS = {"концерт", "выставка", "лекция", "город", "музыка", "вечер", "мастер",
+            "класс", "фестиваль", "участники", "программа", "билеты", "площадка", "гости", "встреча", "event",
+            "open", "air", "джаз", "кино", "театр", "спектакль", "экскурсия", "по", "и", "в", "для", "с"};
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+    private final Random random = new Random(42);
+
+    @Test
+    void gzipShrinksEventAndCompilationPages() throws Exception {
+        List<EventFullDto> events = new ArrayList<>();
+        for (long id = 1; id <= PAGE_SIZE; id++) {
+            events.add(createFullEvent(id));
+        }
+        List<CompilationDto> compilations = new ArrayList<>();
+        for (long id = 1; id <= PAGE_SIZE; id++) {
+            List<EventShortDto> compilationEvents = new ArrayList<>();
+            for (long eventId = 1; eventId <= PAGE_SIZE; eventId++) {
+                compilationEvents.add(createShortEvent(id * PAGE_SIZE + eventId));
+            }
+            compilations.add(CompilationDto.builder()
+                    .id(id)
+                    .title(text(3))
+                    .pinned(id % 2 == 0)
+                    .events(compilationEvents)
+                    .build());
+        }
+
+        Page eventPage = measure(events);
+        Page compilationPage = measure(compilations);
+        log.info("Страница событий: {}", eventPage);
+        log.info("Страница подборок: {}", compilationPage);
+
+        assertThat(eventPage.gzipBytes()).isLessThan(eventPage.jsonBytes() / 2);
+        assertThat(compilationPage.gzipBytes()).isLessThan(compilationPage.jsonBytes() / 4);
+    }
+
+    private Page measure(Object page) throws IOException {
+        byte[] json = objectMapper.writeValueAsBytes(page);
+        byte[] gzip = gzip(json);
+        for (int i = 0; i < ROUNDS; i++) {
+            gzip(objectMapper.writeValueAsBytes(page));
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            objectMapper.writeValueAsBytes(page);
+        }
+        long serializeMicros = (System.nanoTime() - start) / ROUNDS / 1000;
+        start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            gzip(json);
+        }
+        long gzipMicros = (System.nanoTime() - start) / ROUNDS / 1000;
+        return new Page(json.length, gzip.length, serializeMicros, gzipMicros);
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        }
+        return out.toByteArray();
+    }
+
+    private EventFullDto createFullEvent(long id) {
+        LocalDateTime created = LocalDateTime.of(2024, 5, 1, 10, 0).plusHours(id);
+        return EventFullDto.builder()
+                .id(id)
+                .annotation(text(30))
+                .description(text(200))
+                .title(text(5))
+                .category(new CategoryDto(id % 5, text(2)))
+                .initiator(new UserDto(id % 7, text(2), "user" + id % 7 + "@example.com"))
+                .location(new Location(null, 55.75 + random.nextDouble(), 37.61 + random.nextDouble(), null))
+                .confirmedRequests(random.nextInt(100))
+                .participantLimit(100)
+                .paid(id % 2 == 0)
+                .requestModeration(true)
+                .state(EventState.PUBLISHED)
+                .createdOn(created)
+                .publishedOn(created.plusHours(1))
+                .eventDate(created.plusDays(30))
+                .views((long) random.nextInt(10_000))
+                .commentCount((long) random.nextInt(50))
+                .build();
+    }
+
+    private EventShortDto createShortEvent(long id) {
+        return EventShortDto.builder()
+                .id(id)
+                .annotation(text(30))
+                .title(text(5))
+                .category(new CategoryDto(id % 5, text(2)))
+                .initiator(new UserDto(id % 7, text(2), "user" + id % 7 + "@example.com"))
+                .confirmedRequests(random.nextInt(100))
+                .paid(id % 2 == 0)
+                .eventDate(LocalDateTime.of(2024, 6, 1, 18, 0).plusDays(id))
+                .views((long) random.nextInt(10_000))
+                .commentCount((long) random.nextInt(50))
+                .build();
+    }
+
+    private String text(int words) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                text.append(' ');
+            }
+            text.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return text.toString();
+    }
+
+    private record Page(int jsonBytes, int gzipBytes, long serializeMicros, long gzipMicros) {
+        @Override
+        public String toString() {
+            return String.format("JSON %d байт, gzip %d байт; сериализация %d мкс, сжатие %d мкс; "
+                            + "передача %.1f мс без сжатия и %.1f мс со сжатием",
+                    jsonBytes, gzipBytes, serializeMicros, gzipMicros,
+                    transferMillis(jsonBytes), transferMillis(gzipBytes) + gzipMicros / 1000.0);
+        }
+
+        private static double transferMillis(int bytes) {
+            return bytes * 8 * 1000.0 / LINK_BITS_PER_SECOND;
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package ru.practicum.request.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.hibernate.exception.ConstraintViolationException;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.practicum.compilation.service.CompilationCache;
+import ru.practicum.event.model.Event;
+import ru.practicum.event.model.EventState;
+import ru.practicum.event.repository.EventRepository;
+import ru.practicum.exceptions.ConflictException;
+import ru.practicum.request.dto.ParticipationCheckDto;
+import ru.practicum.request.dto.ParticipationRequestDto;
+import ru.practicum.request.model.Request;
+import ru.practicum.request.model.RequestStatus;
+import ru.practicum.request.model.RequestStatusEntity;
+import ru.practicum.request.repository.RequestRepository;
+import ru.practicum.request.repository.RequestStatusRepository;
+import ru.practicum.user.model.User;
+import ru.practicum.user.repository.UserRepository;
+import ru.practicum.validation.RequestValidator;
+
+import java.sql.SQLException;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RequestServiceImplTest {
+    private static final long USER_ID = 1L;
+    private static final long EVENT_ID = 10L;
+    private static final long INITIATOR_ID = 2L;
+
+    @Mock
+    private RequestRepository requestRepository;
+    @Mock
+    private RequestStatusRepository requestStatusRepository;
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private EventRepository eventRepository;
+    @Mock
+    private CompilationCache compilationCache;
+    @Mock
+    private IdempotencyStore idempotencyStore;
+
+    private RequestServiceImpl requestService;
+
+    @BeforeEach
+    void setUp() {
+        requestService = new RequestServiceImpl(requestRepository, requestStatusRepository, userRepository,
+                eventRepository, new RequestValidator(), compilationCache, idempotencyStore);
+        ReflectionTestUtils.setField(requestService, "waitlistEnabled", true);
+        for (RequestStatus status : RequestStatus.values()) {
+            lenient().when(requestStatusRepository.findByName(status)).thenReturn(Optional.of(statusEntity(status)));
+        }
+    }
+
+    @Test
+    void autoConfirmWithWaitlistIncrementsConfirmedOnce() {
+        givenCheck(5, 3);
+        givenInsert();
+        when(eventRepository.addConfirmedRequests(EVENT_ID, 1)).thenReturn(1);
+
+        ParticipationRequestDto result = requestService.createParticipationRequest(USER_ID, EVENT_ID, null);
+
+        assertThat(result.getStatus()).isEqualTo(RequestStatus.CONFIRMED);
+        verify(eventRepository).addConfirmedRequests(EVENT_ID, 1);
+        verify(compilationCache).evictByEvent(EVENT_ID);
+    }
+
+    @Test
+    void autoConfirmTakingLastSlotIsConfirmed() {
+        givenCheck(5, 4);
+        givenInsert();
+        when(eventRepository.addConfirmedRequests(EVENT_ID, 1)).thenReturn(1);
+
+        ParticipationRequestDto result = requestService.createParticipationRequest(USER_ID, EVENT_ID, null);
+
+        assertThat(result.getStatus()).isEqualTo(RequestStatus.CONFIRMED);
+        verify(eventRepository).addConfirmedRequests(EVENT_ID, 1);
+    }
+
+    @Test
+    void lostRaceForLastSlotGoesToWaitlist() {
+        givenCheck(5, 4);
+        givenInsert();
+        when(eventRepository.addConfirmedRequests(EVENT_ID, 1)).thenReturn(0);
+
+        ParticipationRequestDto result = requestService.createParticipationRequest(USER_ID, EVENT_ID, null);
+
+        assertThat(result.getStatus()).isEqualTo(RequestStatus.PENDING);
+        verify(compilationCache, never()).evictByEvent(anyLong());
+    }
+
+    @Test
+    void fullEventWithWaitlistIsPending() {
+        givenCheck(5, 5);
+        givenInsert();
+
+        ParticipationRequestDto result = requestService.createParticipationRequest(USER_ID, EVENT_ID, null);
+
+        assertThat(result.getStatus()).isEqualTo(RequestStatus.PENDING);
+        verify(eventRepository, never()).addConfirmedRequests(anyLong(), anyInt());
+    }
+
+    @Test
+    void fullEventWithoutWaitlistIsConflict() {
+        ReflectionTestUtils.setField(requestService, "waitlistEnabled", false);
+        givenCheck(5, 5);
+
+        assertThatThrownBy(() -> requestService.createParticipationRequest(USER_ID, EVENT_ID, null))
+                .isInstanceOf(ConflictException.class);
+        verify(requestRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void uniqueViolationIsReportedAsDuplicate() {
+        givenCheck(5, 3);
+        givenInsertViolating("uq_request");
+
+        assertThatThrownBy(() -> requestService.createParticipationRequest(USER_ID, EVENT_ID, null))
+                .isInstanceOf(ConflictException.class);
+    }
+
+    @Test
+    void foreignKeyViolationIsRethrown() {
+        givenCheck(5, 3);
+        givenInsertViolating("requests_requester_id_fkey");
+
+        assertThatThrownBy(() -> requestService.createParticipationRequest(USER_ID, EVENT_ID, null))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    @Test
+    void concurrentRetryReturnsResponseOfClaimingRequest() {
+        ParticipationRequestDto stored = ParticipationRequestDto.builder()
+                .id(100L)
+                .requester(USER_ID)
+                .event(EVENT_ID)
+                .status(RequestStatus.CONFIRMED)
+                .build();
+        when(idempotencyStore.find(USER_ID, "key", EVENT_ID)).thenReturn(Optional.empty(), Optional.of(stored));
+        when(idempotencyStore.claim(USER_ID, "key", EVENT_ID)).thenReturn(false);
+
+        ParticipationRequestDto result = requestService.createParticipationRequest(USER_ID, EVENT_ID, "key");
+
+        assertThat(result).isSameAs(stored);
+        verify(requestRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void claimedKeyIsCompletedWithCreatedRequest() {
+        when(idempotencyStore.find(USER_ID, "key", EVENT_ID)).thenReturn(Optional.empty());
+        when(idempotencyStore.claim(USER_ID, "key", EVENT_ID)).thenReturn(true);
+        givenCheck(5, 3);
+        givenInsert();
+        when(eventRepository.addConfirmedRequests(EVENT_ID, 1)).thenReturn(1);
+
+        ParticipationRequestDto result = requestService.createParticipationRequest(USER_ID, EVENT_ID, "key");
+
+        verify(idempotencyStore).complete(USER_ID, "key", result);
+    }
+
+    @Test
+    void cancelConfirmedPromotesOldestPending() {
+        Request request = Request.builder()
+                .id(100L)
+                .requester(User.builder().id(USER_ID).build())
+                .event(Event.builder().id(EVENT_ID).requestModeration(false).build())
+                .status(statusEntity(RequestStatus.CONFIRMED))
+                .build();
+        when(userRepository.existsById(USER_ID)).thenReturn(true);
+        when(requestRepository.findById(100L)).thenReturn(Optional.of(request));
+        when(eventRepository.addConfirmedRequests(EVENT_ID, -1)).thenReturn(1);
+        when(requestRepository.findFirstWaitingIdForUpdate(EVENT_ID, (long) RequestStatus.PENDING.ordinal()))
+                .thenReturn(Optional.of(101L));
+        when(eventRepository.addConfirmedRequests(EVENT_ID, 1)).thenReturn(1);
+
+        ParticipationRequestDto result = requestService.cancelParticipationRequest(USER_ID, 100L);
+
+        assertThat(result.getStatus()).isEqualTo(RequestStatus.CANCELED);
+        verify(requestRepository).updateStatus(any(), any());
+    }
+
+    @Test
+    void raisedLimitPromotesPendingUntilFull() {
+        when(requestRepository.findFirstWaitingIdForUpdate(EVENT_ID, (long) RequestStatus.PENDING.ordinal()))
+                .thenReturn(Optional.of(101L), Optional.of(102L), Optional.of(103L));
+        when(eventRepository.addConfirmedRequests(EVENT_ID, 1)).thenReturn(1, 1, 0);
+
+        int promoted = requestService.promoteWaitlisted(EVENT_ID, false);
+
+        assertThat(promoted).isEqualTo(2);
+        verify(requestRepository, times(2)).updateStatus(any(), any());
+        verify(compilationCache).evictByEvent(EVENT_ID);
+    }
+
+    @Test
+    void raisedLimitWithModerationPromotesNothing() {
+        assertThat(requestService.promoteWaitlisted(EVENT_ID, true)).isZero();
+        verify(requestRepository, never()).findFirstWaitingIdForUpdate(anyLong(), anyLong());
+    }
+
+    private void givenCheck(int limit, int confirmed) {
+        when(requestRepository.findParticipationCheck(USER_ID, EVENT_ID)).thenReturn(Optional.of(
+                new ParticipationCheckDto(EVENT_ID, EventState.PUBLISHED, INITIATOR_ID, limit, false, confirmed,
+                        0L, 1L)));
+    }
+
+    private void givenInsert() {
+        when(userRepository.getReferenceById(USER_ID)).thenReturn(User.builder().id(USER_ID).build());
+        when(eventRepository.getReferenceById(EVENT_ID)).thenReturn(Event.builder().id(EVENT_ID).build());
+        when(requestRepository.saveAndFlush(any(Request.class))).thenAnswer(invocation -> {
+            Request request = invocation.getArgument(0);
+            request.setId(100L);
+            return request;
+        });
+    }
+
+    private void givenInsertViolating(String constraintName) {
+        when(userRepository.getReferenceById(USER_ID)).thenReturn(User.builder().id(USER_ID).build());
+        when(eventRepository.getReferenceById(EVENT_ID)).thenReturn(Event.builder().id(EVENT_ID).build());
+        when(requestRepository.saveAndFlush(any(Request.class))).thenThrow(new DataIntegrityViolationException(
+                "could not execute statement", new ConstraintViolationException("could not execute statement",
+                        new SQLException("violation", "23000"), constraintName)));
+    }
+
+    private static RequestStatusEntity statusEntity(RequestStatus status) {
+        RequestStatusEntity entity = new RequestStatusEntity();
+        ReflectionTestUtils.setField(entity, "id", (long) status.ordinal());
+        ReflectionTestUtils.setField(entity, "name", status);
+        return entity;
+    }
+}
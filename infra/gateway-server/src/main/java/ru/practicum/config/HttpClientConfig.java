@@ -0,0 +1,18 @@
+package ru.practicum.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.gateway.config.HttpClientCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.netty.http.HttpProtocol;
+
+@Configuration
+public class HttpClientConfig {
+
+    // Соединение начинается как HTTP/1.1 и переходит на h2c, если сервис его поддерживает
+    @Bean
+    @ConditionalOnProperty(name = "gateway.httpclient.h2c", havingValue = "true")
+    public HttpClientCustomizer h2cHttpClientCustomizer() {
+        return httpClient -> httpClient.protocol(HttpProtocol.HTTP11, HttpProtocol.H2C);
+    }
+}
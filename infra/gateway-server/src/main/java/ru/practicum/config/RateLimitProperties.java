@@ -0,0 +1,37 @@
+package ru.practicum.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+// Лимит по умолчанию для фильтра RateLimit без аргументов: запросов в секунду и размер всплеска на IP и маршрут
+@Component
+@ConfigurationProperties(prefix = "gateway.rate-limit")
+public class RateLimitProperties {
+    private int maxBuckets = 100000;
+    private double replenishRate = 200;
+    private double burstCapacity = 400;
+
+    public int getMaxBuckets() {
+        return maxBuckets;
+    }
+
+    public void setMaxBuckets(int maxBuckets) {
+        this.maxBuckets = maxBuckets;
+    }
+
+    public double getReplenishRate() {
+        return replenishRate;
+    }
+
+    public void setReplenishRate(double replenishRate) {
+        this.replenishRate = replenishRate;
+    }
+
+    public double getBurstCapacity() {
+        return burstCapacity;
+    }
+
+    public void setBurstCapacity(double burstCapacity) {
+        this.burstCapacity = burstCapacity;
+    }
+}
@@ -0,0 +1,43 @@
+package ru.practicum.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Правила инвалидации кэша ответов: успешная запись по префиксу writes удаляет записи по префиксам evicts
+@Component
+@ConfigurationProperties(prefix = "gateway.response-cache")
+public class ResponseCacheProperties {
+    private List<InvalidationRule> invalidation = new ArrayList<>();
+
+    public List<InvalidationRule> getInvalidation() {
+        return invalidation;
+    }
+
+    public void setInvalidation(List<InvalidationRule> invalidation) {
+        this.invalidation = invalidation;
+    }
+
+    public static class InvalidationRule {
+        private String writes;
+        private List<String> evicts = new ArrayList<>();
+
+        public String getWrites() {
+            return writes;
+        }
+
+        public void setWrites(String writes) {
+            this.writes = writes;
+        }
+
+        public List<String> getEvicts() {
+            return evicts;
+        }
+
+        public void setEvicts(List<String> evicts) {
+            this.evicts = evicts;
+        }
+    }
+}
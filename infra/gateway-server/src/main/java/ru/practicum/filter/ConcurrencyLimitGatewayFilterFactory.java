@@ -0,0 +1,84 @@
+package ru.practicum.filter;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Сброс нагрузки: запросы сверх лимита одновременных обращений к сервису сразу получают 503.
+// Счётчик общий для всех маршрутов с одним и тем же адресом назначения
+@Component
+public class ConcurrencyLimitGatewayFilterFactory
+        extends AbstractGatewayFilterFactory<ConcurrencyLimitGatewayFilterFactory.Config> {
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+
+    public ConcurrencyLimitGatewayFilterFactory(MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return List.of("maxInFlight", "retryAfterSeconds");
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        return (exchange, chain) -> {
+            Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+            String target = route == null ? "unknown" : route.getUri().toString();
+            AtomicInteger counter = inFlight.computeIfAbsent(target, this::registerGauge);
+            if (counter.incrementAndGet() > config.getMaxInFlight()) {
+                counter.decrementAndGet();
+                meterRegistry.counter("gateway.requests.shed",
+                        "route", RateLimitGatewayFilterFactory.routeId(exchange), "reason", "concurrency").increment();
+                exchange.getResponse().setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+                exchange.getResponse().getHeaders()
+                        .set(HttpHeaders.RETRY_AFTER, String.valueOf(config.getRetryAfterSeconds()));
+                return exchange.getResponse().setComplete();
+            }
+            return chain.filter(exchange).doFinally(signal -> counter.decrementAndGet());
+        };
+    }
+
+    private AtomicInteger registerGauge(String target) {
+        AtomicInteger counter = new AtomicInteger();
+        Gauge.builder("gateway.requests.in_flight", counter, AtomicInteger::get)
+                .tag("target", target)
+                .register(meterRegistry);
+        return counter;
+    }
+
+    public static class Config {
+        private int maxInFlight = 200;
+        private int retryAfterSeconds = 1;
+
+        public int getMaxInFlight() {
+            return maxInFlight;
+        }
+
+        public void setMaxInFlight(int maxInFlight) {
+            this.maxInFlight = maxInFlight;
+        }
+
+        public int getRetryAfterSeconds() {
+            return retryAfterSeconds;
+        }
+
+        public void setRetryAfterSeconds(int retryAfterSeconds) {
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package ru.practicum.filter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import ru.practicum.config.RateLimitProperties;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Локальный token bucket на пару "IP клиента + маршрут", без Redis: лимит действует в пределах одного экземпляра шлюза
+@Component
+public class RateLimitGatewayFilterFactory
+        extends AbstractGatewayFilterFactory<RateLimitGatewayFilterFactory.Config> {
+
+    private final RateLimitProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    // Клиенты сверх max-buckets делят один бакет на маршрут, пока очистка не освободит место
+    private final Map<String, TokenBucket> overflowBuckets = new ConcurrentHashMap<>();
+    private final AtomicLong nextSweepAt = new AtomicLong(System.nanoTime());
+
+    public RateLimitGatewayFilterFactory(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return List.of("replenishRate", "burstCapacity");
+    }
+
+    @Override
+    public GatewayFilter apply(Config routeConfig) {
+        Config config = withDefaults(routeConfig);
+        return (exchange, chain) -> {
+            String routeId = routeId(exchange);
+            String key = clientIp(exchange) + "|" + routeId;
+            long now = System.nanoTime();
+            TokenBucket bucket = buckets.get(key);
+            if (bucket == null) {
+                bucket = newBucket(key, routeId, config, now);
+            }
+            long retryAfterSeconds = bucket.tryAcquire(config.getReplenishRate(), config.getBurstCapacity(), now);
+            if (retryAfterSeconds == 0) {
+                return chain.filter(exchange);
+            }
+            shedCounter(routeId).increment();
+            exchange.getResponse().setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+            exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+            return exchange.getResponse().setComplete();
+        };
+    }
+
+    // Значения, не заданные в аргументах фильтра, берутся из gateway.rate-limit
+    private Config withDefaults(Config routeConfig) {
+        Config config = new Config();
+        config.setReplenishRate(routeConfig.getReplenishRate() != null
+                ? routeConfig.getReplenishRate() : properties.getReplenishRate());
+        config.setBurstCapacity(routeConfig.getBurstCapacity() != null
+                ? routeConfig.getBurstCapacity() : properties.getBurstCapacity());
+        return config;
+    }
+
+    private TokenBucket newBucket(String key, String routeId, Config config, long now) {
+        if (buckets.size() >= properties.getMaxBuckets()) {
+            sweepIdle(config, now);
+            if (buckets.size() >= properties.getMaxBuckets()) {
+                return overflowBuckets.computeIfAbsent(routeId,
+                        k -> new TokenBucket(config.getBurstCapacity(), now));
+            }
+        }
+        return buckets.computeIfAbsent(key, k -> new TokenBucket(config.getBurstCapacity(), now));
+    }
+
+    // Простаивающий дольше полного пополнения бакет снова полон, и его можно пересоздать.
+    // Полный обход выполняет один запрос не чаще раза за это время, остальные сразу идут дальше
+    private void sweepIdle(Config config, long now) {
+        long sweepAt = nextSweepAt.get();
+        long idleNanos = (long) (config.getBurstCapacity() / config.getReplenishRate() * 1_000_000_000L);
+        if (now - sweepAt < 0 || !nextSweepAt.compareAndSet(sweepAt, now + idleNanos)) {
+            return;
+        }
+        buckets.values().removeIf(bucket -> bucket.isIdle(now, idleNanos));
+    }
+
+    private Counter shedCounter(String routeId) {
+        return meterRegistry.counter("gateway.requests.shed", "route", routeId, "reason", "rate_limit");
+    }
+
+    static String routeId(ServerWebExchange exchange) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        return route == null ? "unknown" : route.getId();
+    }
+
+    // Шлюз принимает соединения напрямую, поэтому X-Forwarded-For клиента не учитывается
+    private static String clientIp(ServerWebExchange exchange) {
+        InetSocketAddress address = exchange.getRequest().getRemoteAddress();
+        if (address == null) {
+            return "unknown";
+        }
+        return address.getAddress() == null ? address.getHostString() : address.getAddress().getHostAddress();
+    }
+
+    private static class TokenBucket {
+        private double tokens;
+        private long refilledAt;
+
+        TokenBucket(double tokens, long now) {
+            this.tokens = tokens;
+            this.refilledAt = now;
+        }
+
+        // 0 - токен выдан, иначе через сколько секунд он появится
+        synchronized long tryAcquire(double rate, double capacity, long now) {
+            tokens = Math.min(capacity, tokens + (now - refilledAt) / 1_000_000_000.0 * rate);
+            refilledAt = now;
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return Math.max(1, (long) Math.ceil((1 - tokens) / rate));
+        }
+
+        synchronized boolean isIdle(long now, long idleNanos) {
+            return now - refilledAt > idleNanos;
+        }
+    }
+
+    public static class Config {
+        private Double replenishRate;
+        private Double burstCapacity;
+
+        public Double getReplenishRate() {
+            return replenishRate;
+        }
+
+        public void setReplenishRate(Double replenishRate) {
+            this.replenishRate = replenishRate;
+        }
+
+        public Double getBurstCapacity() {
+            return burstCapacity;
+        }
+
+        public void setBurstCapacity(Double burstCapacity) {
+            this.burstCapacity = burstCapacity;
+        }
+    }
+}
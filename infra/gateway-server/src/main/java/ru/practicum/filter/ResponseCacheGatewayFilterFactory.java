@@ -0,0 +1,280 @@
+package ru.practicum.filter;
+
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Кэш ответов на анонимные GET: TTL задаётся в маршруте, одновременные промахи по одному ключу
+// ждут единственный запрос к сервису, а If-None-Match с совпавшим ETag получает 304.
+// Ответы с ETag сервиса перепроверяются условным запросом при каждом обращении, остальные
+// живут до TTL или до успешной записи в связанный ресурс (ResponseCacheInvalidationFilter)
+@Component
+public class ResponseCacheGatewayFilterFactory
+        extends AbstractGatewayFilterFactory<ResponseCacheGatewayFilterFactory.Config> {
+
+    private final int maxEntries;
+    private final Map<String, CachedResponse> cache = new ConcurrentHashMap<>();
+    private final Map<String, Sinks.One<Optional<CachedResponse>>> inFlight = new ConcurrentHashMap<>();
+    // Ответ, запрошенный до инвалидации, в кэш не попадает
+    private final AtomicLong generation = new AtomicLong();
+
+    public ResponseCacheGatewayFilterFactory(@Value("${gateway.response-cache.max-entries:10000}") int maxEntries) {
+        super(Config.class);
+        this.maxEntries = maxEntries;
+    }
+
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return List.of("ttl");
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        return (exchange, chain) -> {
+            ServerHttpRequest request = exchange.getRequest();
+            if (!isCacheable(request)) {
+                return chain.filter(exchange);
+            }
+            String key = cacheKey(request);
+            CachedResponse cached = lookup(key);
+            if (cached != null && !cached.upstreamETag()) {
+                return writeCached(exchange, cached);
+            }
+            Sinks.One<Optional<CachedResponse>> sink = Sinks.one();
+            Sinks.One<Optional<CachedResponse>> leader = inFlight.putIfAbsent(key, sink);
+            if (leader != null) {
+                // Повторный промах ждёт ответа первого запроса; если его нельзя кэшировать, идёт в сервис сам
+                return leader.asMono().flatMap(result -> result.isPresent()
+                        ? writeCached(exchange, result.get())
+                        : chain.filter(exchange));
+            }
+            ServerHttpResponse response = new CachingResponse(exchange, key, sink, config.getTtl(), cached);
+            // В кэш кладётся несжатое тело, сжатие для клиента делает сам шлюз
+            ServerHttpRequest identityRequest = request.mutate()
+                    .headers(headers -> {
+                        headers.remove(HttpHeaders.ACCEPT_ENCODING);
+                        headers.remove(HttpHeaders.IF_NONE_MATCH);
+                        if (cached != null) {
+                            headers.setIfNoneMatch(cached.etag());
+                        }
+                    })
+                    .build();
+            return chain.filter(exchange.mutate().request(identityRequest).response(response).build())
+                    .doFinally(signal -> {
+                        inFlight.remove(key, sink);
+                        sink.tryEmitValue(Optional.empty());
+                    });
+        };
+    }
+
+    private boolean isCacheable(ServerHttpRequest request) {
+        HttpHeaders headers = request.getHeaders();
+        return HttpMethod.GET.equals(request.getMethod())
+                && !headers.containsKey(HttpHeaders.AUTHORIZATION)
+                && !headers.containsKey(HttpHeaders.COOKIE);
+    }
+
+    private String cacheKey(ServerHttpRequest request) {
+        String query = request.getURI().getRawQuery();
+        String accept = request.getHeaders().getFirst(HttpHeaders.ACCEPT);
+        return request.getURI().getRawPath() + (query == null ? "" : "?" + query) + "|" + (accept == null ? "" : accept);
+    }
+
+    private CachedResponse lookup(String key) {
+        CachedResponse cached = cache.get(key);
+        if (cached == null) {
+            return null;
+        }
+        if (cached.isExpired()) {
+            cache.remove(key, cached);
+            return null;
+        }
+        return cached;
+    }
+
+    // Удаляет записи, ключ которых начинается с префикса пути
+    public void evictPrefix(String pathPrefix) {
+        generation.incrementAndGet();
+        cache.keySet().removeIf(key -> key.startsWith(pathPrefix));
+    }
+
+    private void store(String key, CachedResponse response, long loadedAtGeneration) {
+        if (loadedAtGeneration != generation.get()) {
+            return;
+        }
+        if (cache.size() >= maxEntries) {
+            cache.values().removeIf(CachedResponse::isExpired);
+            if (cache.size() >= maxEntries) {
+                return;
+            }
+        }
+        cache.put(key, response);
+    }
+
+    private Mono<Void> writeCached(ServerWebExchange exchange, CachedResponse cached) {
+        return writeCached(exchange.getRequest(), exchange.getResponse(), cached);
+    }
+
+    private static Mono<Void> writeCached(ServerHttpRequest request, ServerHttpResponse response,
+                                          CachedResponse cached) {
+        response.getHeaders().setETag(cached.etag());
+        if (matchesETag(request, cached.etag())) {
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            return response.setComplete();
+        }
+        response.setStatusCode(HttpStatus.OK);
+        if (cached.contentType() != null) {
+            response.getHeaders().setContentType(cached.contentType());
+        }
+        response.getHeaders().setContentLength(cached.body().length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(cached.body())));
+    }
+
+    // Слабое сравнение, как требует If-None-Match: префикс W/ не учитывается с обеих сторон
+    private static boolean matchesETag(ServerHttpRequest request, String etag) {
+        String expected = stripWeak(etag);
+        for (String value : request.getHeaders().getIfNoneMatch()) {
+            String candidate = stripWeak(value);
+            if ("*".equals(candidate) || candidate.equals(expected)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String stripWeak(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+
+    private static boolean isStorable(ServerHttpResponse response) {
+        HttpStatusCode status = response.getStatusCode();
+        HttpHeaders headers = response.getHeaders();
+        String cacheControl = headers.getCacheControl();
+        return status != null && status.value() == HttpStatus.OK.value()
+                && !headers.containsKey(HttpHeaders.SET_COOKIE)
+                && !headers.containsKey(HttpHeaders.CONTENT_ENCODING)
+                && (cacheControl == null || !(cacheControl.contains("no-store") || cacheControl.contains("private")));
+    }
+
+    // Перехватывает тело ответа сервиса, кладёт его в кэш и отдаёт клиенту с ETag
+    private class CachingResponse extends ServerHttpResponseDecorator {
+        private final ServerHttpRequest request;
+        private final String key;
+        private final Sinks.One<Optional<CachedResponse>> sink;
+        private final Duration ttl;
+        private final CachedResponse revalidating;
+        private final long loadedAtGeneration;
+
+        CachingResponse(ServerWebExchange exchange, String key, Sinks.One<Optional<CachedResponse>> sink,
+                        Duration ttl, CachedResponse revalidating) {
+            super(exchange.getResponse());
+            this.request = exchange.getRequest();
+            this.key = key;
+            this.sink = sink;
+            this.ttl = ttl;
+            this.revalidating = revalidating;
+            this.loadedAtGeneration = generation.get();
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            HttpStatusCode status = getDelegate().getStatusCode();
+            if (revalidating != null && status != null && status.value() == HttpStatus.NOT_MODIFIED.value()) {
+                // Сервис подтвердил закэшированную версию: отдаём сохранённое тело и продлеваем запись
+                CachedResponse refreshed = revalidating.refreshed(System.nanoTime() + ttl.toNanos());
+                store(key, refreshed, loadedAtGeneration);
+                inFlight.remove(key, sink);
+                sink.tryEmitValue(Optional.of(refreshed));
+                getHeaders().remove(HttpHeaders.CONTENT_LENGTH);
+                getHeaders().remove(HttpHeaders.TRANSFER_ENCODING);
+                return Flux.from(body).doOnNext(DataBufferUtils::release)
+                        .then(Mono.defer(() -> writeCached(request, getDelegate(), refreshed)));
+            }
+            if (!isStorable(getDelegate())) {
+                if (revalidating != null) {
+                    // Например, 404 после удаления: устаревшая запись больше не отдаётся
+                    cache.remove(key, revalidating);
+                }
+                return super.writeWith(body);
+            }
+            return DataBufferUtils.join(body).flatMap(joined -> {
+                byte[] bytes = new byte[joined.readableByteCount()];
+                joined.read(bytes);
+                DataBufferUtils.release(joined);
+
+                String etag = getHeaders().getETag();
+                boolean upstreamETag = etag != null;
+                if (!upstreamETag) {
+                    etag = "\"" + DigestUtils.md5DigestAsHex(bytes) + "\"";
+                }
+                CachedResponse cached = new CachedResponse(getHeaders().getContentType(), bytes, etag, upstreamETag,
+                        System.nanoTime() + ttl.toNanos());
+                store(key, cached, loadedAtGeneration);
+                inFlight.remove(key, sink);
+                sink.tryEmitValue(Optional.of(cached));
+
+                getHeaders().setETag(etag);
+                getHeaders().remove(HttpHeaders.TRANSFER_ENCODING);
+                if (matchesETag(request, etag)) {
+                    setStatusCode(HttpStatus.NOT_MODIFIED);
+                    getHeaders().remove(HttpHeaders.CONTENT_LENGTH);
+                    return getDelegate().setComplete();
+                }
+                getHeaders().setContentLength(bytes.length);
+                return super.writeWith(Mono.just(bufferFactory().wrap(bytes)));
+            });
+        }
+
+        @Override
+        public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+            return writeWith(Flux.from(body).concatMap(Flux::from));
+        }
+    }
+
+    private record CachedResponse(MediaType contentType, byte[] body, String etag, boolean upstreamETag,
+                                  long expiresAtNanos) {
+        boolean isExpired() {
+            return System.nanoTime() - expiresAtNanos > 0;
+        }
+
+        CachedResponse refreshed(long newExpiresAtNanos) {
+            return new CachedResponse(contentType, body, etag, upstreamETag, newExpiresAtNanos);
+        }
+    }
+
+    public static class Config {
+        private Duration ttl = Duration.ofSeconds(30);
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+    }
+}
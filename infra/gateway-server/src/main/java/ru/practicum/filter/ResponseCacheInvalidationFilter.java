@@ -0,0 +1,51 @@
+package ru.practicum.filter;
+
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import ru.practicum.config.ResponseCacheProperties;
+
+// После успешного изменения ресурса через шлюз удаляет связанные записи кэша ответов.
+// Работает в пределах экземпляра шлюза; записи с ETag сервиса дополнительно перепроверяются при каждом чтении
+@Component
+public class ResponseCacheInvalidationFilter implements GlobalFilter, Ordered {
+
+    private final ResponseCacheGatewayFilterFactory responseCache;
+    private final ResponseCacheProperties properties;
+
+    public ResponseCacheInvalidationFilter(ResponseCacheGatewayFilterFactory responseCache,
+                                           ResponseCacheProperties properties) {
+        this.responseCache = responseCache;
+        this.properties = properties;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        HttpMethod method = exchange.getRequest().getMethod();
+        if (HttpMethod.GET.equals(method) || HttpMethod.HEAD.equals(method) || HttpMethod.OPTIONS.equals(method)) {
+            return chain.filter(exchange);
+        }
+        String path = exchange.getRequest().getURI().getRawPath();
+        return chain.filter(exchange).then(Mono.fromRunnable(() -> {
+            HttpStatusCode status = exchange.getResponse().getStatusCode();
+            if (status == null || !status.is2xxSuccessful()) {
+                return;
+            }
+            for (ResponseCacheProperties.InvalidationRule rule : properties.getInvalidation()) {
+                if (path.startsWith(rule.getWrites())) {
+                    rule.getEvicts().forEach(responseCache::evictPrefix);
+                }
+            }
+        }));
+    }
+
+    @Override
+    public int getOrder() {
+        return 0;
+    }
+}
@@ -11,6 +11,7 @@ import org.springframework.retry.support.RetryTemplate;
 import org.springframework.web.client.RestClient;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.util.UriComponentsBuilder;
+import ru.practicum.stats.codec.HitCodec;
 import ru.practicum.stats.dto.EndpointHitDto;
 import ru.practicum.stats.dto.ViewStatsDto;
 
@@ -20,19 +21,29 @@ public class StatsClient {
     private final DiscoveryClient discoveryClient;
     private final RetryTemplate retryTemplate;
     private final String statServiceId;
+    private final boolean binaryHits;
 
     private static final String HIT_ENDPOINT = "/hit";
+    private static final String HIT_BATCH_ENDPOINT = "/hit/batch";
+    private static final MediaType HITS_MEDIA_TYPE = MediaType.parseMediaType(HitCodec.MEDIA_TYPE);
     private static final String STATS_ENDPOINT = "/stats";
+    private static final String TOP_ENDPOINT = "/stats/top";
 
     public StatsClient(DiscoveryClient discoveryClient,
                       RetryTemplate retryTemplate,
-                      String statServiceId) {
+                      String statServiceId,
+                      boolean binaryHits) {
         this.discoveryClient = discoveryClient;
         this.retryTemplate = retryTemplate;
         this.statServiceId = statServiceId;
+        this.binaryHits = binaryHits;
     }
 
     public void saveStatEvent(EndpointHitDto endpointHitDto) {
+        if (binaryHits) {
+            postBinary(HIT_ENDPOINT, List.of(endpointHitDto));
+            return;
+        }
         executeWithDiscovery(client ->
                 client.post()
                         .uri(HIT_ENDPOINT)
@@ -42,6 +53,32 @@ public class StatsClient {
         );
     }
 
+    public void saveStatEvents(List<EndpointHitDto> hits) {
+        if (binaryHits) {
+            postBinary(HIT_BATCH_ENDPOINT, hits);
+            return;
+        }
+        executeWithDiscovery(client ->
+                client.post()
+                        .uri(HIT_BATCH_ENDPOINT)
+                        .body(hits)
+                        .retrieve()
+                        .toBodilessEntity()
+        );
+    }
+
+    private void postBinary(String endpoint, List<EndpointHitDto> hits) {
+        byte[] body = HitCodec.encode(hits);
+        executeWithDiscovery(client ->
+                client.post()
+                        .uri(endpoint)
+                        .contentType(HITS_MEDIA_TYPE)
+                        .body(body)
+                        .retrieve()
+                        .toBodilessEntity()
+        );
+    }
+
     public ResponseEntity<List<ViewStatsDto>> getStats(String start,
                                                        String end,
                                                        @Nullable List<String> uris,
@@ -55,6 +92,25 @@ public class StatsClient {
         });
     }
 
+    public ResponseEntity<List<ViewStatsDto>> getTop(String start,
+                                                     String end,
+                                                     String app,
+                                                     int limit) {
+        return executeWithDiscovery(client -> {
+            String uri = UriComponentsBuilder.fromPath(TOP_ENDPOINT)
+                    .queryParam("start", start)
+                    .queryParam("end", end)
+                    .queryParam("app", app)
+                    .queryParam("limit", limit)
+                    .build()
+                    .toUriString();
+            return client.get()
+                    .uri(uri)
+                    .retrieve()
+                    .toEntity(new ParameterizedTypeReference<>() {});
+        });
+    }
+
     private String buildStatsUri(String start, String end, @Nullable List<String> uris, boolean unique) {
         UriComponentsBuilder builder = UriComponentsBuilder.fromPath(STATS_ENDPOINT)
                 .queryParam("start", start)
@@ -14,6 +14,9 @@ public class StatsClientConfig {
     @Value("${discovery.services.stats-server-id:stats-server}")
     private String statServiceId;
 
+    @Value("${stats-client.binary-hits:false}")
+    private boolean binaryHits;
+
 
 
     @Bean
@@ -33,7 +36,7 @@ public class StatsClientConfig {
     @Bean
     public StatsClient statClient(DiscoveryClient discoveryClient,
                                  RetryTemplate retryTemplate) {
-        return new StatsClient(discoveryClient, retryTemplate, statServiceId);
+        return new StatsClient(discoveryClient, retryTemplate, statServiceId, binaryHits);
     }
 
 
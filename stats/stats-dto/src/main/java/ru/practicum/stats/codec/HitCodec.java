@@ -0,0 +1,141 @@
+package ru.practicum.stats.codec;
+
+import ru.practicum.stats.dto.EndpointHitDto;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+// Двоичный формат хитов: каждая запись = varint-длина, app, uri, ip и время в мс от эпохи (UTC).
+// Строки - varint-длина и UTF-8; IP - тег 4/16 и байты адреса, либо тег 0 и строка, если адрес не в канонической записи
+public final class HitCodec {
+    public static final String MEDIA_TYPE = "application/x-ewm-hits";
+
+    private static final int IP_TEXT = 0;
+    private static final int MAX_RECORD_BYTES = 64 * 1024;
+
+    private HitCodec() {
+    }
+
+    public static byte[] encode(List<EndpointHitDto> hits) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(hits.size() * 48);
+        ByteArrayOutputStream record = new ByteArrayOutputStream(64);
+        for (EndpointHitDto hit : hits) {
+            record.reset();
+            writeString(record, hit.getApp());
+            writeString(record, hit.getUri());
+            writeIp(record, hit.getIp());
+            writeVarLong(record, zigZag(hit.getTimestamp().toInstant(ZoneOffset.UTC).toEpochMilli()));
+            writeVarLong(out, record.size());
+            out.writeBytes(record.toByteArray());
+        }
+        return out.toByteArray();
+    }
+
+    public static List<EndpointHitDto> decode(byte[] data) {
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        List<EndpointHitDto> hits = new ArrayList<>();
+        try {
+            while (buffer.hasRemaining()) {
+                long length = readVarLong(buffer);
+                if (length <= 0 || length > MAX_RECORD_BYTES || length > buffer.remaining()) {
+                    throw new IllegalArgumentException("Некорректная длина записи хита: " + length);
+                }
+                ByteBuffer record = buffer.slice(buffer.position(), (int) length);
+                buffer.position(buffer.position() + (int) length);
+                hits.add(EndpointHitDto.builder()
+                        .app(readString(record))
+                        .uri(readString(record))
+                        .ip(readIp(record))
+                        .timestamp(LocalDateTime.ofInstant(
+                                Instant.ofEpochMilli(unZigZag(readVarLong(record))), ZoneOffset.UTC))
+                        .build());
+                if (record.hasRemaining()) {
+                    throw new IllegalArgumentException("Лишние байты в конце записи хита: " + record.remaining());
+                }
+            }
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Запись хита обрезана", e);
+        } catch (DateTimeException e) {
+            throw new IllegalArgumentException("Некорректное время хита", e);
+        }
+        return hits;
+    }
+
+    private static void writeIp(ByteArrayOutputStream out, String ip) {
+        byte[] address = IpAddresses.parse(ip);
+        // Упаковываем только адреса, которые восстановятся в ту же строку
+        if (address != null && IpAddresses.format(address).equals(ip)) {
+            out.write(address.length);
+            out.writeBytes(address);
+        } else {
+            out.write(IP_TEXT);
+            writeString(out, ip);
+        }
+    }
+
+    private static String readIp(ByteBuffer in) {
+        int tag = in.get() & 0xff;
+        if (tag == IP_TEXT) {
+            return readString(in);
+        }
+        if (tag != 4 && tag != 16) {
+            throw new IllegalArgumentException("Неизвестный тип IP-адреса: " + tag);
+        }
+        byte[] address = new byte[tag];
+        in.get(address);
+        return IpAddresses.format(address);
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length);
+        out.writeBytes(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        long length = readVarLong(in);
+        // Десятибайтный varint может дать отрицательную длину
+        if (length < 0 || length > in.remaining()) {
+            throw new IllegalArgumentException("Некорректная длина строки: " + length);
+        }
+        byte[] bytes = new byte[(int) length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Слишком длинный varint");
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,178 @@
+package ru.practicum.stats.codec;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Разбор и запись IP-адресов без обращения к DNS
+public final class IpAddresses {
+    private static final int IPV4_BYTES = 4;
+    private static final int IPV6_BYTES = 16;
+    private static final int IPV6_GROUPS = 8;
+
+    private IpAddresses() {
+    }
+
+    // 4 или 16 байт, null - если строка не является IP-адресом
+    public static byte[] parse(String ip) {
+        if (ip == null || ip.isEmpty()) {
+            return null;
+        }
+        return ip.indexOf(':') >= 0 ? parseIpv6(ip) : parseIpv4(ip);
+    }
+
+    // IPv4 в точечной записи, IPv6 в сокращённой записи по RFC 5952
+    public static String format(byte[] address) {
+        if (address.length == IPV4_BYTES) {
+            return formatIpv4(address, 0);
+        }
+        if (address.length != IPV6_BYTES) {
+            throw new IllegalArgumentException("Некорректная длина IP-адреса: " + address.length);
+        }
+        if (isIpv4Mapped(address)) {
+            return "::ffff:" + formatIpv4(address, 12);
+        }
+        int[] groups = new int[IPV6_GROUPS];
+        for (int i = 0; i < IPV6_GROUPS; i++) {
+            groups[i] = ((address[i * 2] & 0xff) << 8) | (address[i * 2 + 1] & 0xff);
+        }
+        int bestStart = -1;
+        int bestLength = 1;
+        for (int i = 0; i < IPV6_GROUPS; ) {
+            if (groups[i] != 0) {
+                i++;
+                continue;
+            }
+            int start = i;
+            while (i < IPV6_GROUPS && groups[i] == 0) {
+                i++;
+            }
+            if (i - start > bestLength) {
+                bestStart = start;
+                bestLength = i - start;
+            }
+        }
+        StringBuilder result = new StringBuilder(39);
+        for (int i = 0; i < IPV6_GROUPS; i++) {
+            if (i == bestStart) {
+                result.append("::");
+                i += bestLength - 1;
+                continue;
+            }
+            if (i > 0 && i != bestStart + bestLength) {
+                result.append(':');
+            }
+            result.append(Integer.toHexString(groups[i]));
+        }
+        return result.toString();
+    }
+
+    public static boolean isIpv4Mapped(byte[] address) {
+        if (address.length != IPV6_BYTES || address[10] != (byte) 0xff || address[11] != (byte) 0xff) {
+            return false;
+        }
+        for (int i = 0; i < 10; i++) {
+            if (address[i] != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String formatIpv4(byte[] address, int offset) {
+        return (address[offset] & 0xff) + "." + (address[offset + 1] & 0xff) + "."
+                + (address[offset + 2] & 0xff) + "." + (address[offset + 3] & 0xff);
+    }
+
+    private static byte[] parseIpv4(String ip) {
+        String[] parts = ip.split("\\.", -1);
+        if (parts.length != IPV4_BYTES) {
+            return null;
+        }
+        byte[] address = new byte[IPV4_BYTES];
+        for (int i = 0; i < IPV4_BYTES; i++) {
+            String part = parts[i];
+            if (part.isEmpty() || part.length() > 3) {
+                return null;
+            }
+            int value = 0;
+            for (int j = 0; j < part.length(); j++) {
+                char c = part.charAt(j);
+                if (c < '0' || c > '9') {
+                    return null;
+                }
+                value = value * 10 + (c - '0');
+            }
+            if (value > 255) {
+                return null;
+            }
+            address[i] = (byte) value;
+        }
+        return address;
+    }
+
+    private static byte[] parseIpv6(String ip) {
+        String body = ip;
+        byte[] ipv4 = null;
+        int lastColon = ip.lastIndexOf(':');
+        // Последние 32 бита могут быть записаны как IPv4
+        if (ip.indexOf('.', lastColon) >= 0) {
+            ipv4 = parseIpv4(ip.substring(lastColon + 1));
+            if (ipv4 == null || lastColon == 0) {
+                return null;
+            }
+            body = ip.charAt(lastColon - 1) == ':' ? ip.substring(0, lastColon + 1) : ip.substring(0, lastColon);
+        }
+        int needed = ipv4 == null ? IPV6_GROUPS : IPV6_GROUPS - 2;
+        int doubleColon = body.indexOf("::");
+        if (doubleColon >= 0 && body.indexOf("::", doubleColon + 1) >= 0) {
+            return null;
+        }
+        List<Integer> head = parseGroups(doubleColon >= 0 ? body.substring(0, doubleColon) : body);
+        List<Integer> tail = doubleColon >= 0 ? parseGroups(body.substring(doubleColon + 2)) : List.of();
+        if (head == null || tail == null) {
+            return null;
+        }
+        if (doubleColon < 0 ? head.size() != needed : head.size() + tail.size() >= needed) {
+            return null;
+        }
+        byte[] address = new byte[IPV6_BYTES];
+        for (int i = 0; i < head.size(); i++) {
+            putGroup(address, i, head.get(i));
+        }
+        for (int i = 0; i < tail.size(); i++) {
+            putGroup(address, needed - tail.size() + i, tail.get(i));
+        }
+        if (ipv4 != null) {
+            System.arraycopy(ipv4, 0, address, 12, IPV4_BYTES);
+        }
+        return address;
+    }
+
+    private static List<Integer> parseGroups(String groups) {
+        List<Integer> result = new ArrayList<>(IPV6_GROUPS);
+        if (groups.isEmpty()) {
+            return result;
+        }
+        for (String group : groups.split(":", -1)) {
+            if (group.isEmpty() || group.length() > 4) {
+                return null;
+            }
+            int value = 0;
+            for (int i = 0; i < group.length(); i++) {
+                char c = group.charAt(i);
+                int digit = c < 128 ? Character.digit(c, 16) : -1;
+                if (digit < 0) {
+                    return null;
+                }
+                value = value * 16 + digit;
+            }
+            result.add(value);
+        }
+        return result;
+    }
+
+    private static void putGroup(byte[] address, int index, int value) {
+        address[index * 2] = (byte) (value >> 8);
+        address[index * 2 + 1] = (byte) value;
+    }
+}
@@ -0,0 +1,135 @@
+package ru.practicum.server.stats.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingRequestWrapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Enumeration;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+@Slf4j
+public class SampledRequestLoggingFilter extends OncePerRequestFilter {
+    // Значения этих заголовков в лог не попадают
+    private static final Set<String> SENSITIVE_HEADERS = Set.of("authorization", "proxy-authorization", "cookie",
+            "set-cookie", "x-api-key", "x-auth-token");
+
+    private final double sampleRate;
+    private final int maxHeaders;
+    private final int maxHeaderLength;
+    private final boolean includePayload;
+    private final int maxPayloadLength;
+
+    public SampledRequestLoggingFilter(double sampleRate,
+                                       int maxHeaders,
+                                       int maxHeaderLength,
+                                       boolean includePayload,
+                                       int maxPayloadLength) {
+        this.sampleRate = sampleRate;
+        this.maxHeaders = maxHeaders;
+        this.maxHeaderLength = maxHeaderLength;
+        this.includePayload = includePayload;
+        this.maxPayloadLength = maxPayloadLength;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        // Не попавшие в выборку запросы проходят без обёрток и без аллокаций
+        if (!isSampled()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        HttpServletRequest requestToUse = includePayload
+                ? new ContentCachingRequestWrapper(request, maxPayloadLength)
+                : request;
+        long startNanos = System.nanoTime();
+        try {
+            filterChain.doFilter(requestToUse, response);
+        } finally {
+            long durationMs = (System.nanoTime() - startNanos) / 1_000_000;
+            log.info(buildMessage(requestToUse, response.getStatus(), durationMs));
+        }
+    }
+
+    private boolean isSampled() {
+        if (sampleRate <= 0 || !log.isInfoEnabled()) {
+            return false;
+        }
+        return sampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+
+    private String buildMessage(HttpServletRequest request, int status, long durationMs) {
+        StringBuilder message = new StringBuilder(256)
+                .append(request.getMethod()).append(' ')
+                .append(request.getRequestURI());
+        if (request.getQueryString() != null) {
+            message.append('?').append(request.getQueryString());
+        }
+        message.append(" client=").append(request.getRemoteAddr())
+                .append(" status=").append(status)
+                .append(" time=").append(durationMs).append("ms");
+        appendHeaders(message, request);
+        if (request instanceof ContentCachingRequestWrapper wrapper) {
+            appendPayload(message, wrapper);
+        }
+        return message.toString();
+    }
+
+    private void appendHeaders(StringBuilder message, HttpServletRequest request) {
+        if (maxHeaders <= 0) {
+            return;
+        }
+        message.append(" headers=[");
+        Enumeration<String> names = request.getHeaderNames();
+        int count = 0;
+        while (names.hasMoreElements() && count < maxHeaders) {
+            String name = names.nextElement();
+            if (count++ > 0) {
+                message.append(", ");
+            }
+            message.append(name).append('=');
+            if (SENSITIVE_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                message.append("***");
+            } else {
+                appendTruncated(message, request.getHeader(name), maxHeaderLength);
+            }
+        }
+        if (names.hasMoreElements()) {
+            message.append(", ...");
+        }
+        message.append(']');
+    }
+
+    private void appendPayload(StringBuilder message, ContentCachingRequestWrapper wrapper) {
+        byte[] content = wrapper.getContentAsByteArray();
+        if (content.length == 0) {
+            return;
+        }
+        int length = Math.min(content.length, maxPayloadLength);
+        message.append(" payload=").append(new String(content, 0, length, StandardCharsets.UTF_8));
+        if (content.length > length) {
+            message.append("...");
+        }
+    }
+
+    private void appendTruncated(StringBuilder message, String value, int maxLength) {
+        if (value == null) {
+            return;
+        }
+        if (value.length() <= maxLength) {
+            message.append(value);
+        } else {
+            message.append(value, 0, maxLength).append("...");
+        }
+    }
+}
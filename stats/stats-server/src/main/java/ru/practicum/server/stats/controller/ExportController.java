@@ -0,0 +1,111 @@
+package ru.practicum.server.stats.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.server.stats.config.ExportDataSource;
+import ru.practicum.server.stats.exceptions.ValidationException;
+import ru.practicum.server.stats.model.ExportFormat;
+import ru.practicum.server.stats.service.StatsService;
+import ru.practicum.stats.dto.EndpointHitDto;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.zip.GZIPOutputStream;
+
+@RestController
+@RequestMapping("/export")
+@RequiredArgsConstructor
+public class ExportController {
+    private static final String DATE_TIME_PATTERN = "yyyy-MM-dd HH:mm:ss";
+    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern(DATE_TIME_PATTERN);
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final byte[] CSV_HEADER = "id,app,uri,ip,timestamp\n".getBytes(StandardCharsets.UTF_8);
+
+    private final StatsService statsService;
+    private final ObjectMapper objectMapper;
+
+    @GetMapping("/hits")
+    public ResponseEntity<StreamingResponseBody> exportHits(
+            @RequestParam @DateTimeFormat(pattern = DATE_TIME_PATTERN) LocalDateTime start,
+            @RequestParam @DateTimeFormat(pattern = DATE_TIME_PATTERN) LocalDateTime end,
+            @RequestParam(defaultValue = "NDJSON") ExportFormat format,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        if (!start.isBefore(end)) {
+            throw new ValidationException("Дата начала должна быть раньше даты окончания");
+        }
+
+        // Строки пишутся в буферизованный поток по мере чтения курсора, без накопления в памяти
+        StreamingResponseBody body = responseStream -> {
+            OutputStream target = gzip ? new GZIPOutputStream(responseStream, BUFFER_SIZE) : responseStream;
+            OutputStream out = new BufferedOutputStream(target, BUFFER_SIZE);
+            HitWriter writer = format == ExportFormat.CSV ? csvWriter(out) : ndjsonWriter(out);
+            ExportDataSource.run(() -> statsService.exportHits(start, end, hit -> {
+                try {
+                    writer.write(hit);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+            // Поток закрывается только после успешной выгрузки: при ошибке GZIP не должен дописать трейлер,
+            // иначе оборванный архив распакуется как целый. Исключение обрывает соединение
+            out.close();
+        };
+
+        String fileName = "hits." + format.getExtension() + (gzip ? ".gz" : "");
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(gzip ? "application/gzip" : format.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .body(body);
+    }
+
+    private HitWriter ndjsonWriter(OutputStream out) {
+        ObjectWriter writer = objectMapper.writerFor(EndpointHitDto.class)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        return hit -> {
+            writer.writeValue(out, hit);
+            out.write('\n');
+        };
+    }
+
+    private HitWriter csvWriter(OutputStream out) throws IOException {
+        out.write(CSV_HEADER);
+        return hit -> {
+            StringBuilder line = new StringBuilder(128)
+                    .append(hit.getId()).append(',');
+            appendCsv(line, hit.getApp()).append(',');
+            appendCsv(line, hit.getUri()).append(',');
+            appendCsv(line, hit.getIp()).append(',')
+                    .append(hit.getTimestamp().format(DATE_TIME_FORMATTER))
+                    .append('\n');
+            out.write(line.toString().getBytes(StandardCharsets.UTF_8));
+        };
+    }
+
+    private StringBuilder appendCsv(StringBuilder line, String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return line.append(value);
+        }
+        return line.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+
+    @FunctionalInterface
+    private interface HitWriter {
+        void write(EndpointHitDto hit) throws IOException;
+    }
+}
@@ -3,14 +3,19 @@ package ru.practicum.server.stats.controller;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import ru.practicum.server.stats.exceptions.ValidationException;
 import ru.practicum.server.stats.service.StatsService;
+import ru.practicum.stats.codec.HitCodec;
 import ru.practicum.stats.dto.EndpointHitDto;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/hit")
 @RequiredArgsConstructor
@@ -24,4 +29,33 @@ public class HitsController {
         return ResponseEntity.status(HttpStatus.CREATED).body(saved);
     }
 
+    @PostMapping(consumes = HitCodec.MEDIA_TYPE)
+    public ResponseEntity<Void> saveHitBinary(@RequestBody byte[] body) {
+        List<EndpointHitDto> hits = decode(body);
+        if (hits.size() != 1) {
+            throw new ValidationException("Ожидался один хит, получено " + hits.size());
+        }
+        statsService.saveHits(hits);
+        return ResponseEntity.status(HttpStatus.CREATED).build();
+    }
+
+    @PostMapping(path = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Void> saveHits(@RequestBody List<EndpointHitDto> hits) {
+        statsService.saveHits(hits);
+        return ResponseEntity.status(HttpStatus.CREATED).build();
+    }
+
+    @PostMapping(path = "/batch", consumes = HitCodec.MEDIA_TYPE)
+    public ResponseEntity<Void> saveHitsBinary(@RequestBody byte[] body) {
+        statsService.saveHits(decode(body));
+        return ResponseEntity.status(HttpStatus.CREATED).build();
+    }
+
+    private List<EndpointHitDto> decode(byte[] body) {
+        try {
+            return HitCodec.decode(body);
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Некорректное тело запроса: " + e.getMessage());
+        }
+    }
 }
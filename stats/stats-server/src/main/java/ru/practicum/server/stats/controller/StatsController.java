@@ -28,4 +28,14 @@ public class StatsController {
     ) {
         return statsService.getStats(start, end, uris, unique);
     }
+
+    @GetMapping("/top")
+    public List<ViewStatsDto> getTop(
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime start,
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime end,
+            @RequestParam String app,
+            @RequestParam(defaultValue = "10") int limit
+    ) {
+        return statsService.getTop(start, end, app, limit);
+    }
 }
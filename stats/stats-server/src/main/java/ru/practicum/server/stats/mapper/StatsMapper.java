@@ -1,17 +1,23 @@
 package ru.practicum.server.stats.mapper;
 
+import ru.practicum.server.stats.exceptions.ValidationException;
 import ru.practicum.server.stats.model.App;
 import ru.practicum.server.stats.model.EndpointHit;
+import ru.practicum.server.stats.model.HitRow;
 import ru.practicum.server.stats.model.Uri;
+import ru.practicum.stats.codec.IpAddresses;
 import ru.practicum.stats.dto.EndpointHitDto;
 
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
 public class StatsMapper {
 
     public static EndpointHit toEntity(EndpointHitDto dto, App app, Uri uri) {
         return EndpointHit.builder()
                 .app(app)
                 .uri(uri)
-                .ip(dto.getIp())
+                .ip(toInetAddress(dto.getIp()))
                 .timestamp(dto.getTimestamp())
                 .build();
     }
@@ -21,8 +27,35 @@ public class StatsMapper {
                 .id(hit.getId())
                 .app(hit.getApp().getName())
                 .uri(hit.getUri().getUri())
-                .ip(hit.getIp())
+                .ip(toIpString(hit.getIp()))
                 .timestamp(hit.getTimestamp())
                 .build();
     }
+
+    public static EndpointHitDto toDto(HitRow row) {
+        return EndpointHitDto.builder()
+                .id(row.id())
+                .app(row.app())
+                .uri(row.uri())
+                .ip(toIpString(row.ip()))
+                .timestamp(row.timestamp())
+                .build();
+    }
+
+    // Разбор без обращения к DNS: принимаются только записи IPv4 и IPv6
+    public static InetAddress toInetAddress(String ip) {
+        byte[] address = IpAddresses.parse(ip);
+        if (address == null) {
+            throw new ValidationException("Некорректный IP-адрес: " + ip);
+        }
+        try {
+            return InetAddress.getByAddress(address);
+        } catch (UnknownHostException e) {
+            throw new ValidationException("Некорректный IP-адрес: " + ip);
+        }
+    }
+
+    public static String toIpString(InetAddress ip) {
+        return IpAddresses.format(ip.getAddress());
+    }
 }
@@ -2,7 +2,10 @@ package ru.practicum.server.stats.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
+import java.net.InetAddress;
 import java.time.LocalDateTime;
 
 @Entity
@@ -15,7 +18,8 @@ import java.time.LocalDateTime;
 public class EndpointHit {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "endpoint_hits_seq")
+    @SequenceGenerator(name = "endpoint_hits_seq", sequenceName = "endpoint_hits_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
@@ -26,8 +30,9 @@ public class EndpointHit {
     @JoinColumn(name = "uri_id", nullable = false)
     private Uri uri;
 
-    @Column(nullable = false, length = 45)
-    private String ip;
+    @JdbcTypeCode(SqlTypes.INET)
+    @Column(nullable = false)
+    private InetAddress ip;
 
     @Column(nullable = false)
     private LocalDateTime timestamp;
@@ -0,0 +1,6 @@
+package ru.practicum.server.stats.model;
+
+import java.time.LocalDateTime;
+
+public record HitCounterKey(Long appId, Long uriId, String app, String uri, LocalDateTime bucket) {
+}
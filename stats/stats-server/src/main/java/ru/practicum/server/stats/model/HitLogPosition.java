@@ -0,0 +1,4 @@
+package ru.practicum.server.stats.model;
+
+public record HitLogPosition(long segment, long position) {
+}
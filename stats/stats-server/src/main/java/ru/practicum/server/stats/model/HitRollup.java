@@ -0,0 +1,31 @@
+package ru.practicum.server.stats.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+// Число хитов по приложению и URI за минуту
+@Entity
+@Table(name = "hit_rollups")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class HitRollup {
+
+    @EmbeddedId
+    private HitRollupId id;
+
+    @MapsId("appId")
+    @ManyToOne
+    @JoinColumn(name = "app_id")
+    private App app;
+
+    @MapsId("uriId")
+    @ManyToOne
+    @JoinColumn(name = "uri_id")
+    private Uri uri;
+
+    @Column(nullable = false)
+    private Long hits;
+}
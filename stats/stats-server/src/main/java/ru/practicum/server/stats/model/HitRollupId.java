@@ -0,0 +1,30 @@
+package ru.practicum.server.stats.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+@Embeddable
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+public class HitRollupId implements Serializable {
+
+    @Column(name = "app_id")
+    private Long appId;
+
+    @Column(name = "uri_id")
+    private Long uriId;
+
+    @Column(name = "bucket")
+    private LocalDateTime bucket;
+}
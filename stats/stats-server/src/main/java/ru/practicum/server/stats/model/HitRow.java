@@ -0,0 +1,7 @@
+package ru.practicum.server.stats.model;
+
+import java.net.InetAddress;
+import java.time.LocalDateTime;
+
+public record HitRow(Long id, String app, String uri, InetAddress ip, LocalDateTime timestamp) {
+}
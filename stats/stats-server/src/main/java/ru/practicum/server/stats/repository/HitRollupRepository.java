@@ -0,0 +1,25 @@
+package ru.practicum.server.stats.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.practicum.server.stats.model.HitRollup;
+import ru.practicum.server.stats.model.HitRollupId;
+import ru.practicum.stats.dto.ViewStatsDto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface HitRollupRepository extends JpaRepository<HitRollup, HitRollupId> {
+
+    @Query("SELECT new ru.practicum.stats.dto.ViewStatsDto(r.app.name, r.uri.uri, SUM(r.hits)) " +
+            "FROM HitRollup r " +
+            "WHERE r.id.bucket >= :from AND r.id.bucket < :to " +
+            "AND (:uris IS NULL OR r.uri.uri IN :uris) " +
+            "GROUP BY r.app.name, r.uri.uri")
+    List<ViewStatsDto> getStats(
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to,
+            @Param("uris") List<String> uris
+    );
+}
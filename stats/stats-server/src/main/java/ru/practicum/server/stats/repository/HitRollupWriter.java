@@ -0,0 +1,65 @@
+package ru.practicum.server.stats.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.server.stats.model.HitCounterKey;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Map;
+
+@Repository
+@RequiredArgsConstructor
+public class HitRollupWriter {
+    private static final String UPSERT = "INSERT INTO hit_rollups (app_id, uri_id, bucket, hits) VALUES (?, ?, ?, ?) " +
+            "ON CONFLICT (app_id, uri_id, bucket) DO UPDATE SET hits = hit_rollups.hits + EXCLUDED.hits";
+    private static final int BATCH_SIZE = 500;
+    private static final String SELECT_STATE =
+            "SELECT flushed_at, clean_shutdown FROM hit_rollup_state WHERE id = 1 FOR UPDATE";
+    private static final String UPDATE_STATE = "UPDATE hit_rollup_state SET flushed_at = ? WHERE id = 1";
+    private static final String UPDATE_CLEAN = "UPDATE hit_rollup_state SET clean_shutdown = ? WHERE id = 1";
+    private static final String RECEIVED_BUCKETS = "SELECT DISTINCT app_id, uri_id, " +
+            "date_trunc('minute', timestamp) AS bucket FROM endpoint_hits WHERE received_at >= ?";
+    private static final String DELETE_RECEIVED = "DELETE FROM hit_rollups r USING (" + RECEIVED_BUCKETS + ") b " +
+            "WHERE r.app_id = b.app_id AND r.uri_id = b.uri_id AND r.bucket = b.bucket";
+    private static final String REBUILD_RECEIVED = "INSERT INTO hit_rollups (app_id, uri_id, bucket, hits) " +
+            "SELECT b.app_id, b.uri_id, b.bucket, COUNT(*) FROM (" + RECEIVED_BUCKETS + ") b " +
+            "JOIN endpoint_hits h ON h.app_id = b.app_id AND h.uri_id = b.uri_id " +
+            "AND h.timestamp >= b.bucket AND h.timestamp < b.bucket + INTERVAL '1 minute' " +
+            "GROUP BY b.app_id, b.uri_id, b.bucket";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void addHits(Map<HitCounterKey, Long> hits) {
+        jdbcTemplate.batchUpdate(UPSERT, new ArrayList<>(hits.entrySet()), BATCH_SIZE, (statement, entry) -> {
+            HitCounterKey key = entry.getKey();
+            statement.setLong(1, key.appId());
+            statement.setLong(2, key.uriId());
+            statement.setTimestamp(3, Timestamp.valueOf(key.bucket()));
+            statement.setLong(4, entry.getValue());
+        });
+    }
+
+    // Время последнего сброса счётчиков или null, если прошлый запуск завершился штатно
+    public LocalDateTime lockStateAndGetUncleanFlush() {
+        return jdbcTemplate.queryForObject(SELECT_STATE, (rs, rowNum) ->
+                rs.getBoolean("clean_shutdown") ? null : rs.getTimestamp("flushed_at").toLocalDateTime());
+    }
+
+    public void markFlushed(LocalDateTime flushedAt) {
+        jdbcTemplate.update(UPDATE_STATE, Timestamp.valueOf(flushedAt));
+    }
+
+    public void markCleanShutdown(boolean clean) {
+        jdbcTemplate.update(UPDATE_CLEAN, clean);
+    }
+
+    // Минуты, в которые попали хиты, записанные в БД начиная с receivedFrom, пересчитываются целиком,
+    // в том числе минуты задним числом
+    public void rebuildReceivedSince(LocalDateTime receivedFrom) {
+        jdbcTemplate.update(DELETE_RECEIVED, Timestamp.valueOf(receivedFrom));
+        jdbcTemplate.update(REBUILD_RECEIVED, Timestamp.valueOf(receivedFrom));
+    }
+}
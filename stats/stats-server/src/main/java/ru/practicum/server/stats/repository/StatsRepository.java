@@ -1,13 +1,19 @@
 package ru.practicum.server.stats.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import ru.practicum.server.stats.model.EndpointHit;
+import ru.practicum.server.stats.model.HitRow;
 import ru.practicum.stats.dto.ViewStatsDto;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 
 public interface StatsRepository extends JpaRepository<EndpointHit, Long> {
@@ -24,6 +30,17 @@ public interface StatsRepository extends JpaRepository<EndpointHit, Long> {
             @Param("uris") List<String> uris
     );
 
+    @Query("SELECT new ru.practicum.stats.dto.ViewStatsDto(e.app.name, e.uri.uri, COUNT(e.id)) " +
+            "FROM EndpointHit e " +
+            "WHERE e.timestamp >= :start AND e.timestamp < :end " +
+            "AND (:uris IS NULL OR e.uri.uri IN :uris) " +
+            "GROUP BY e.app.name, e.uri.uri")
+    List<ViewStatsDto> getStatsBefore(
+            @Param("start") LocalDateTime start,
+            @Param("end") LocalDateTime end,
+            @Param("uris") List<String> uris
+    );
+
     @Query("SELECT new ru.practicum.stats.dto.ViewStatsDto(e.app.name, e.uri.uri, COUNT(DISTINCT e.ip)) " +
             "FROM EndpointHit e " +
             "WHERE e.timestamp BETWEEN :start AND :end " +
@@ -35,4 +52,30 @@ public interface StatsRepository extends JpaRepository<EndpointHit, Long> {
             @Param("end") LocalDateTime end,
             @Param("uris") List<String> uris
     );
+
+    @Query("SELECT new ru.practicum.stats.dto.ViewStatsDto(e.app.name, e.uri.uri, COUNT(e.id)) " +
+            "FROM EndpointHit e " +
+            "WHERE e.timestamp BETWEEN :start AND :end " +
+            "AND e.app.name = :app " +
+            "GROUP BY e.app.name, e.uri.uri " +
+            "ORDER BY COUNT(e.id) DESC")
+    List<ViewStatsDto> getTopStats(
+            @Param("start") LocalDateTime start,
+            @Param("end") LocalDateTime end,
+            @Param("app") String app,
+            Pageable pageable
+    );
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new ru.practicum.server.stats.model.HitRow(e.id, e.app.name, e.uri.uri, e.ip, e.timestamp) " +
+            "FROM EndpointHit e " +
+            "WHERE e.timestamp >= :start AND e.timestamp < :end " +
+            "ORDER BY e.timestamp, e.id")
+    Stream<HitRow> streamHits(
+            @Param("start") LocalDateTime start,
+            @Param("end") LocalDateTime end
+    );
 }
@@ -0,0 +1,182 @@
+package ru.practicum.server.stats.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.server.stats.model.HitCounterKey;
+import ru.practicum.server.stats.repository.HitRollupWriter;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+// Поминутные счётчики хитов в памяти, периодически добавляются в hit_rollups
+@Slf4j
+@Component
+public class HitCounter {
+    private final HitRollupWriter hitRollupWriter;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration recoveryMargin;
+
+    // Приём хитов берёт разделяемую блокировку, подмена карты при сбросе - исключительную
+    private final ReentrantReadWriteLock swapLock = new ReentrantReadWriteLock();
+    // Чтения идут параллельно друг другу; исключительная блокировка берётся только на подмену карты
+    // и на фиксацию транзакции сброса, поэтому хиты не учитываются дважды и не пропадают из выдачи
+    private final ReentrantReadWriteLock flushLock = new ReentrantReadWriteLock();
+    private volatile Map<HitCounterKey, LongAdder> counters = new ConcurrentHashMap<>();
+    // Снятые при сбросе счётчики видны читателям, пока транзакция сброса не зафиксирована
+    private volatile Map<HitCounterKey, Long> draining = Map.of();
+
+    public HitCounter(HitRollupWriter hitRollupWriter,
+                      TransactionTemplate transactionTemplate,
+                      @Value("${stats.rollup.recovery-margin-minutes:60}") long recoveryMarginMinutes) {
+        this.hitRollupWriter = hitRollupWriter;
+        this.transactionTemplate = transactionTemplate;
+        this.recoveryMargin = Duration.ofMinutes(recoveryMarginMinutes);
+    }
+
+    // Несброшенные счётчики теряются при аварийной остановке, поэтому до приёма хитов пересчитываются
+    // минуты всех хитов, записанных в БД после последнего сброса, включая хиты задним числом.
+    // received_at - время начала транзакции вставки, запас покрывает долгие транзакции;
+    // предполагается один экземпляр сервиса на БД
+    @PostConstruct
+    public void recover() {
+        transactionTemplate.executeWithoutResult(status -> {
+            LocalDateTime flushedAt = hitRollupWriter.lockStateAndGetUncleanFlush();
+            if (flushedAt != null) {
+                LocalDateTime from = flushedAt.minus(recoveryMargin);
+                log.warn("Предыдущий запуск завершился аварийно, пересчитываются агрегаты хитов, записанных с {}",
+                        from);
+                hitRollupWriter.rebuildReceivedSince(from);
+            }
+            hitRollupWriter.markCleanShutdown(false);
+            hitRollupWriter.markFlushed(LocalDateTime.now());
+        });
+    }
+
+    public static LocalDateTime toBucket(LocalDateTime timestamp) {
+        return timestamp.truncatedTo(ChronoUnit.MINUTES);
+    }
+
+    public void increment(Long appId, Long uriId, String app, String uri, LocalDateTime timestamp) {
+        HitCounterKey key = new HitCounterKey(appId, uriId, app, uri, toBucket(timestamp));
+        swapLock.readLock().lock();
+        try {
+            counters.computeIfAbsent(key, k -> new LongAdder()).increment();
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    // Выполняет чтение сохранённых и несброшенных данных без пересечения со сбросом
+    public <T> T withConsistentView(Supplier<T> reader) {
+        flushLock.readLock().lock();
+        try {
+            return reader.get();
+        } finally {
+            flushLock.readLock().unlock();
+        }
+    }
+
+    // Вызывается внутри withConsistentView, минуты в полуинтервале [from, to)
+    public void forEachInFlight(LocalDateTime from, LocalDateTime to, BiConsumer<HitCounterKey, Long> consumer) {
+        counters.forEach((key, adder) -> {
+            if (!key.bucket().isBefore(from) && key.bucket().isBefore(to)) {
+                consumer.accept(key, adder.sum());
+            }
+        });
+        draining.forEach((key, hits) -> {
+            if (!key.bucket().isBefore(from) && key.bucket().isBefore(to)) {
+                consumer.accept(key, hits);
+            }
+        });
+    }
+
+    // Запись в БД идёт без блокировок; читатели ждут только подмены карты и фиксации транзакции
+    @Scheduled(fixedDelayString = "${stats.rollup.flush-interval-ms:5000}")
+    public synchronized void flush() {
+        LocalDateTime swappedAt;
+        Map<HitCounterKey, Long> hits = new HashMap<>();
+        flushLock.writeLock().lock();
+        try {
+            Map<HitCounterKey, LongAdder> snapshot;
+            swapLock.writeLock().lock();
+            try {
+                snapshot = counters;
+                counters = new ConcurrentHashMap<>();
+                swappedAt = LocalDateTime.now();
+            } finally {
+                swapLock.writeLock().unlock();
+            }
+            snapshot.forEach((key, adder) -> hits.put(key, adder.sum()));
+            draining = Collections.unmodifiableMap(hits);
+        } finally {
+            flushLock.writeLock().unlock();
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (!hits.isEmpty()) {
+                    hitRollupWriter.addHits(hits);
+                }
+                hitRollupWriter.markFlushed(swappedAt);
+                TransactionSynchronizationManager.registerSynchronization(new DrainingRelease());
+            });
+        } catch (RuntimeException e) {
+            // Несохранённые хиты возвращаются в счётчики до следующей попытки
+            log.warn("Не удалось сохранить счётчики хитов: {}", e.getMessage());
+            flushLock.writeLock().lock();
+            try {
+                swapLock.readLock().lock();
+                try {
+                    hits.forEach((key, count) -> counters.computeIfAbsent(key, k -> new LongAdder()).add(count));
+                } finally {
+                    swapLock.readLock().unlock();
+                }
+                draining = Map.of();
+            } finally {
+                flushLock.writeLock().unlock();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+        if (counters.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> hitRollupWriter.markCleanShutdown(true));
+        }
+    }
+
+    // Фиксация сброса и исчезновение снятых счётчиков атомарны для читателей
+    private class DrainingRelease implements TransactionSynchronization {
+        @Override
+        public void beforeCompletion() {
+            flushLock.writeLock().lock();
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            if (status == STATUS_COMMITTED) {
+                draining = Map.of();
+            }
+            if (flushLock.writeLock().isHeldByCurrentThread()) {
+                flushLock.writeLock().unlock();
+            }
+        }
+    }
+}
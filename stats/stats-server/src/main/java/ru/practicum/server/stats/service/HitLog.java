@@ -0,0 +1,361 @@
+package ru.practicum.server.stats.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.practicum.server.stats.exceptions.ValidationException;
+import ru.practicum.server.stats.model.HitLogPosition;
+import ru.practicum.stats.dto.EndpointHitDto;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+// Локальный журнал хитов: запись = длина, CRC32 и данные; сегменты именуются порядковым номером
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "stats.hit-log.enabled", havingValue = "true")
+public class HitLog {
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int HEADER_BYTES = 8;
+    private static final int MAX_RECORD_BYTES = 256 * 1024;
+    private static final int READ_CHUNK_BYTES = 1024 * 1024;
+
+    private final Path directory;
+    private final long segmentBytes;
+
+    private final Object writeLock = new Object();
+    private FileChannel channel;
+    private long segmentId;
+    private long position;
+    private long appendedSeq;
+    // Конец сброшенной на диск части журнала: дальше него читатель не заходит
+    private volatile HitLogPosition end;
+
+    // Групповой fsync: один поток сбрасывает на диск всё, что успели дописать остальные
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private final Condition synced = syncLock.newCondition();
+    private long syncedSeq;
+    private long failedSeq;
+    private boolean syncing;
+
+    public HitLog(@Value("${stats.hit-log.dir:hit-log}") String directory,
+                  @Value("${stats.hit-log.segment-bytes:67108864}") long segmentBytes) {
+        this.directory = Path.of(directory);
+        this.segmentBytes = segmentBytes;
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        Files.createDirectories(directory);
+        List<Long> segments = segments();
+        synchronized (writeLock) {
+            segmentId = segments.isEmpty() ? 0 : segments.get(segments.size() - 1);
+            // Новые записи идут в новый сегмент: позиция потребителя в обрезанном сегменте может оказаться
+            // дальше его конца, и дописанные туда записи были бы пропущены или прочитаны с середины
+            if (!segments.isEmpty()) {
+                recoverTail(segmentId);
+                segmentId++;
+            }
+            channel = FileChannel.open(segmentPath(segmentId),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            position = 0;
+            end = new HitLogPosition(segmentId, 0);
+        }
+        log.info("Журнал хитов открыт в {}, текущий сегмент {}", directory.toAbsolutePath(), segmentId);
+    }
+
+    // Хвост последнего сегмента мог остаться недописанным при падении
+    private void recoverTail(long id) throws IOException {
+        try (FileChannel last = FileChannel.open(segmentPath(id), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long valid = scan(last, 0, last.size(), Integer.MAX_VALUE, payload -> { });
+            if (valid < last.size()) {
+                log.warn("Сегмент {} журнала хитов обрезан с {} до {} байт", id, last.size(), valid);
+                last.truncate(valid);
+                last.force(false);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        synchronized (writeLock) {
+            channel.force(false);
+            channel.close();
+        }
+    }
+
+    // Возвращает управление только после того, как записи сброшены на диск
+    public void append(List<EndpointHitDto> hits) throws IOException {
+        List<ByteBuffer> records = hits.stream().map(HitLog::encode).toList();
+        long batchBytes = records.stream().mapToLong(ByteBuffer::remaining).sum();
+        long seq;
+        synchronized (writeLock) {
+            // Пакет целиком попадает в один сегмент, чтобы при ошибке его можно было откатить одним truncate
+            if (position > 0 && position + batchBytes > segmentBytes) {
+                rotate();
+            }
+            long batchStart = position;
+            try {
+                for (ByteBuffer record : records) {
+                    while (record.hasRemaining()) {
+                        position += channel.write(record);
+                    }
+                }
+            } catch (IOException e) {
+                // Клиент повторит весь пакет, поэтому уже записанные хиты пакета тоже отбрасываются
+                position = batchStart;
+                channel.truncate(batchStart);
+                channel.position(batchStart);
+                throw e;
+            }
+            seq = ++appendedSeq;
+        }
+        awaitDurable(seq);
+    }
+
+    public HitLogPosition start() throws IOException {
+        List<Long> segments = segments();
+        return new HitLogPosition(segments.isEmpty() ? 0 : segments.get(0), 0);
+    }
+
+    // Читает записи начиная с from, не заходя дальше сброшенного на диск конца журнала
+    public Batch read(HitLogPosition from, int maxRecords) throws IOException {
+        HitLogPosition last = end;
+        if (from.segment() > last.segment()) {
+            log.warn("Позиция {} впереди журнала хитов, чтение начнётся с первого сегмента", from);
+            return new Batch(List.of(), start());
+        }
+        boolean sealed = from.segment() < last.segment();
+        Path path = segmentPath(from.segment());
+        if (sealed && !Files.exists(path)) {
+            return new Batch(List.of(), new HitLogPosition(from.segment() + 1, 0));
+        }
+        try (FileChannel reader = FileChannel.open(path, StandardOpenOption.READ)) {
+            long limit = sealed ? reader.size() : last.position();
+            if (from.position() >= limit) {
+                return new Batch(List.of(), sealed ? new HitLogPosition(from.segment() + 1, 0) : from);
+            }
+            List<EndpointHitDto> hits = new ArrayList<>();
+            long next = scan(reader, from.position(), limit, maxRecords, payload -> hits.add(decode(payload)));
+            if (next < limit && hits.size() < maxRecords) {
+                log.error("Повреждённая запись в сегменте {} журнала хитов на позиции {}, пропущено {} байт",
+                        from.segment(), next, limit - next);
+                next = limit;
+            }
+            return new Batch(hits, new HitLogPosition(from.segment(), next));
+        }
+    }
+
+    public void deleteSegmentsBefore(long segment) throws IOException {
+        long current;
+        synchronized (writeLock) {
+            current = segmentId;
+        }
+        for (Long id : segments()) {
+            if (id < segment && id < current) {
+                Files.deleteIfExists(segmentPath(id));
+            }
+        }
+    }
+
+    private void rotate() throws IOException {
+        channel.force(false);
+        channel.close();
+        segmentId++;
+        position = 0;
+        channel = FileChannel.open(segmentPath(segmentId),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        end = new HitLogPosition(segmentId, 0);
+    }
+
+    private void awaitDurable(long seq) throws IOException {
+        syncLock.lock();
+        try {
+            while (syncedSeq < seq) {
+                if (seq <= failedSeq) {
+                    throw new IOException("Сброс журнала хитов на диск не удался, пакет отброшен");
+                }
+                if (syncing) {
+                    synced.awaitUninterruptibly();
+                    continue;
+                }
+                syncing = true;
+                long target = syncedSeq;
+                long failed = failedSeq;
+                syncLock.unlock();
+                try {
+                    target = force();
+                } catch (IOException e) {
+                    failed = discardUnsynced();
+                    throw e;
+                } finally {
+                    syncLock.lock();
+                    syncing = false;
+                    syncedSeq = Math.max(syncedSeq, target);
+                    failedSeq = Math.max(failedSeq, failed);
+                    synced.signalAll();
+                }
+            }
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    private long force() throws IOException {
+        FileChannel target;
+        long seq;
+        HitLogPosition written;
+        synchronized (writeLock) {
+            target = channel;
+            seq = appendedSeq;
+            written = new HitLogPosition(segmentId, position);
+        }
+        try {
+            target.force(false);
+        } catch (ClosedChannelException e) {
+            log.debug("Сегмент журнала хитов уже сброшен на диск при ротации");
+        }
+        synchronized (writeLock) {
+            if (written.segment() == end.segment() && written.position() > end.position()) {
+                end = written;
+            }
+        }
+        return seq;
+    }
+
+    // Записи после сброшенного конца отбрасываются, иначе повтор пакета клиентом их продублирует
+    private long discardUnsynced() {
+        synchronized (writeLock) {
+            long durable = end.position();
+            log.error("Сброс журнала хитов на диск не удался, сегмент {} обрезается с {} до {} байт",
+                    segmentId, position, durable);
+            try {
+                channel.truncate(durable);
+                channel.position(durable);
+                position = durable;
+            } catch (IOException e) {
+                log.error("Не удалось обрезать сегмент {} журнала хитов", segmentId, e);
+            }
+            return appendedSeq;
+        }
+    }
+
+    private List<Long> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private Path segmentPath(long id) {
+        return directory.resolve(String.format("%020d%s", id, SEGMENT_SUFFIX));
+    }
+
+    // Возвращает позицию после последней целой записи с верной контрольной суммой
+    private static long scan(FileChannel channel, long from, long limit, int maxRecords,
+                             Consumer<byte[]> payloads) throws IOException {
+        ByteBuffer chunk = ByteBuffer.allocate(READ_CHUNK_BYTES);
+        CRC32 crc = new CRC32();
+        long position = from;
+        int records = 0;
+        while (position < limit && records < maxRecords) {
+            chunk.clear();
+            chunk.limit((int) Math.min(chunk.capacity(), limit - position));
+            while (chunk.hasRemaining()) {
+                if (channel.read(chunk, position + chunk.position()) < 0) {
+                    break;
+                }
+            }
+            chunk.flip();
+            int consumed = 0;
+            while (records < maxRecords && chunk.remaining() >= HEADER_BYTES) {
+                int start = chunk.position();
+                int length = chunk.getInt(start);
+                if (length <= 0 || length > MAX_RECORD_BYTES || chunk.remaining() < HEADER_BYTES + length) {
+                    break;
+                }
+                byte[] payload = new byte[length];
+                chunk.position(start + HEADER_BYTES);
+                chunk.get(payload);
+                crc.reset();
+                crc.update(payload);
+                if ((int) crc.getValue() != chunk.getInt(start + 4)) {
+                    break;
+                }
+                payloads.accept(payload);
+                records++;
+                consumed = chunk.position();
+            }
+            if (consumed == 0) {
+                break;
+            }
+            position += consumed;
+        }
+        return position;
+    }
+
+    private static ByteBuffer encode(EndpointHitDto hit) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeUTF(hit.getApp());
+            out.writeUTF(hit.getUri());
+            out.writeUTF(hit.getIp());
+            out.writeLong(hit.getTimestamp().toInstant(ZoneOffset.UTC).toEpochMilli());
+        } catch (IOException e) {
+            throw new ValidationException("Хит не помещается в запись журнала");
+        }
+        byte[] payload = bytes.toByteArray();
+        if (payload.length > MAX_RECORD_BYTES) {
+            throw new ValidationException("Хит не помещается в запись журнала");
+        }
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return ByteBuffer.allocate(HEADER_BYTES + payload.length)
+                .putInt(payload.length)
+                .putInt((int) crc.getValue())
+                .put(payload)
+                .flip();
+    }
+
+    private static EndpointHitDto decode(byte[] payload) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            return EndpointHitDto.builder()
+                    .app(in.readUTF())
+                    .uri(in.readUTF())
+                    .ip(in.readUTF())
+                    .timestamp(LocalDateTime.ofInstant(Instant.ofEpochMilli(in.readLong()), ZoneOffset.UTC))
+                    .build();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public record Batch(List<EndpointHitDto> hits, HitLogPosition next) {
+    }
+}
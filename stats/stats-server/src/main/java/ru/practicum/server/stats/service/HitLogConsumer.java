@@ -0,0 +1,210 @@
+package ru.practicum.server.stats.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.server.stats.exceptions.ValidationException;
+import ru.practicum.server.stats.mapper.StatsMapper;
+import ru.practicum.server.stats.model.App;
+import ru.practicum.server.stats.model.EndpointHit;
+import ru.practicum.server.stats.model.HitCounterKey;
+import ru.practicum.server.stats.model.HitLogPosition;
+import ru.practicum.server.stats.model.Uri;
+import ru.practicum.server.stats.repository.AppRepository;
+import ru.practicum.server.stats.repository.HitRollupWriter;
+import ru.practicum.server.stats.repository.StatsRepository;
+import ru.practicum.server.stats.repository.UriRepository;
+import ru.practicum.stats.dto.EndpointHitDto;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Переносит хиты из журнала в БД; позиция журнала фиксируется в той же транзакции, что и сами хиты
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "stats.hit-log.enabled", havingValue = "true")
+public class HitLogConsumer {
+    private static final String SELECT_CHECKPOINT =
+            "SELECT segment, position FROM hit_log_checkpoints WHERE log_id = ?";
+    private static final String UPSERT_CHECKPOINT =
+            "INSERT INTO hit_log_checkpoints (log_id, segment, position) VALUES (?, ?, ?) " +
+            "ON CONFLICT (log_id) DO UPDATE SET segment = EXCLUDED.segment, position = EXCLUDED.position";
+    private static final long RETRY_DELAY_MS = 1000;
+
+    private final HitLog hitLog;
+    private final StatsRepository statsRepository;
+    private final AppRepository appRepository;
+    private final UriRepository uriRepository;
+    private final HitRollupWriter hitRollupWriter;
+    private final PopularUriTracker popularUriTracker;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final String logId;
+    private final int batchSize;
+    private final long pollIntervalMs;
+
+    // Кэши id приложений и URI, пополняются только после фиксации транзакции
+    private final Map<String, App> apps = new ConcurrentHashMap<>();
+    private final Map<String, Uri> uris = new ConcurrentHashMap<>();
+
+    private volatile boolean running;
+    private Thread worker;
+
+    public HitLogConsumer(HitLog hitLog,
+                          StatsRepository statsRepository,
+                          AppRepository appRepository,
+                          UriRepository uriRepository,
+                          HitRollupWriter hitRollupWriter,
+                          PopularUriTracker popularUriTracker,
+                          JdbcTemplate jdbcTemplate,
+                          TransactionTemplate transactionTemplate,
+                          @Value("${stats.hit-log.id:default}") String logId,
+                          @Value("${stats.hit-log.batch-size:5000}") int batchSize,
+                          @Value("${stats.hit-log.poll-interval-ms:50}") long pollIntervalMs) {
+        this.hitLog = hitLog;
+        this.statsRepository = statsRepository;
+        this.appRepository = appRepository;
+        this.uriRepository = uriRepository;
+        this.hitRollupWriter = hitRollupWriter;
+        this.popularUriTracker = popularUriTracker;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.logId = logId;
+        this.batchSize = batchSize;
+        this.pollIntervalMs = pollIntervalMs;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        running = true;
+        worker = new Thread(this::run, "hit-log-consumer");
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+            worker.join(RETRY_DELAY_MS * 10);
+        }
+    }
+
+    // При запуске дочитывает всё, что осталось после последней сохранённой позиции
+    private void run() {
+        HitLogPosition position = null;
+        while (running) {
+            try {
+                if (position == null) {
+                    position = loadCheckpoint();
+                    log.info("Чтение журнала хитов с сегмента {} позиции {}", position.segment(), position.position());
+                }
+                HitLog.Batch batch = hitLog.read(position, batchSize);
+                if (batch.hits().isEmpty()) {
+                    if (batch.next().equals(position)) {
+                        Thread.sleep(pollIntervalMs);
+                    }
+                } else {
+                    persist(batch.hits(), batch.next());
+                }
+                if (batch.next().segment() > position.segment()) {
+                    if (batch.hits().isEmpty()) {
+                        saveCheckpoint(batch.next());
+                    }
+                    hitLog.deleteSegmentsBefore(batch.next().segment());
+                }
+                position = batch.next();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                if (!running) {
+                    return;
+                }
+                log.error("Ошибка переноса хитов из журнала, повтор через {} мс", RETRY_DELAY_MS, e);
+                position = null;
+                try {
+                    Thread.sleep(RETRY_DELAY_MS);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void persist(List<EndpointHitDto> hits, HitLogPosition next) {
+        Map<String, App> newApps = new HashMap<>();
+        Map<String, Uri> newUris = new HashMap<>();
+        transactionTemplate.executeWithoutResult(status -> {
+            List<EndpointHit> entities = new ArrayList<>(hits.size());
+            Map<HitCounterKey, Long> rollups = new HashMap<>();
+            for (EndpointHitDto hit : hits) {
+                InetAddress ip;
+                try {
+                    ip = StatsMapper.toInetAddress(hit.getIp());
+                } catch (ValidationException e) {
+                    // Записи, принятые до проверки адресов, не должны останавливать перенос
+                    log.warn("Хит с некорректным IP {} пропущен", hit.getIp());
+                    continue;
+                }
+                App app = resolveApp(hit.getApp(), newApps);
+                Uri uri = resolveUri(hit.getUri(), newUris);
+                entities.add(EndpointHit.builder()
+                        .app(app)
+                        .uri(uri)
+                        .ip(ip)
+                        .timestamp(hit.getTimestamp())
+                        .build());
+                rollups.merge(new HitCounterKey(app.getId(), uri.getId(), app.getName(), uri.getUri(),
+                        HitCounter.toBucket(hit.getTimestamp())), 1L, Long::sum);
+            }
+            statsRepository.saveAll(entities);
+            // Агрегаты пишутся сразу, минуя счётчики в памяти, чтобы повтор пакета не дал расхождений
+            hitRollupWriter.addHits(rollups);
+            saveCheckpoint(next);
+        });
+        apps.putAll(newApps);
+        uris.putAll(newUris);
+        hits.forEach(hit -> popularUriTracker.record(hit.getApp(), hit.getUri(), hit.getTimestamp()));
+    }
+
+    private App resolveApp(String name, Map<String, App> newApps) {
+        App app = apps.get(name);
+        if (app == null) {
+            app = newApps.computeIfAbsent(name, key -> appRepository.findByName(key)
+                    .orElseGet(() -> appRepository.save(new App(null, key))));
+        }
+        return app;
+    }
+
+    private Uri resolveUri(String value, Map<String, Uri> newUris) {
+        Uri uri = uris.get(value);
+        if (uri == null) {
+            uri = newUris.computeIfAbsent(value, key -> uriRepository.findByUri(key)
+                    .orElseGet(() -> uriRepository.save(new Uri(null, key))));
+        }
+        return uri;
+    }
+
+    private HitLogPosition loadCheckpoint() throws IOException {
+        List<HitLogPosition> checkpoints = jdbcTemplate.query(SELECT_CHECKPOINT,
+                (rs, rowNum) -> new HitLogPosition(rs.getLong("segment"), rs.getLong("position")), logId);
+        return checkpoints.isEmpty() ? hitLog.start() : checkpoints.get(0);
+    }
+
+    private void saveCheckpoint(HitLogPosition position) {
+        jdbcTemplate.update(UPSERT_CHECKPOINT, logId, position.segment(), position.position());
+    }
+}
@@ -0,0 +1,80 @@
+package ru.practicum.server.stats.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.stats.dto.ViewStatsDto;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+// Часовые корзины Space-Saving по приложениям, заполняются при приёме хитов
+@Component
+public class PopularUriTracker {
+    private static final long SECONDS_PER_HOUR = 3600;
+
+    private final int capacity;
+    private final long retentionHours;
+    private final long trackedFromHour;
+    private final Map<String, NavigableMap<Long, SpaceSavingSketch>> buckets = new ConcurrentHashMap<>();
+
+    public PopularUriTracker(@Value("${stats.top.capacity:1000}") int capacity,
+                             @Value("${stats.top.retention-hours:168}") long retentionHours) {
+        this.capacity = capacity;
+        this.retentionHours = retentionHours;
+        // Текущий час неполный: хиты до запуска в нём не учтены
+        this.trackedFromHour = toHour(LocalDateTime.now()) + 1;
+    }
+
+    public void record(String app, String uri, LocalDateTime timestamp) {
+        long hour = toHour(timestamp);
+        long oldestHour = oldestRetainedHour();
+        if (hour < oldestHour) {
+            return;
+        }
+        NavigableMap<Long, SpaceSavingSketch> appBuckets =
+                buckets.computeIfAbsent(app, key -> new ConcurrentSkipListMap<>());
+        appBuckets.computeIfAbsent(hour, key -> new SpaceSavingSketch(capacity)).offer(uri);
+        if (appBuckets.firstKey() < oldestHour) {
+            appBuckets.headMap(oldestHour).clear();
+        }
+    }
+
+    public boolean covers(LocalDateTime start) {
+        long startHour = toHour(start);
+        return startHour >= trackedFromHour && startHour >= oldestRetainedHour();
+    }
+
+    // Окно расширяется до границ часов
+    public List<ViewStatsDto> top(String app, LocalDateTime start, LocalDateTime end, int limit) {
+        NavigableMap<Long, SpaceSavingSketch> appBuckets = buckets.get(app);
+        if (appBuckets == null) {
+            return List.of();
+        }
+        Map<String, Long> totals = new HashMap<>();
+        appBuckets.subMap(toHour(start), true, toHour(end), true)
+                .values()
+                .forEach(sketch -> sketch.addTo(totals));
+        return totals.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder())
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(limit)
+                .map(entry -> new ViewStatsDto(app, entry.getKey(), entry.getValue()))
+                .toList();
+    }
+
+    private long oldestRetainedHour() {
+        return toHour(LocalDateTime.now()) - retentionHours + 1;
+    }
+
+    private static long toHour(LocalDateTime timestamp) {
+        return timestamp.truncatedTo(ChronoUnit.HOURS).toEpochSecond(ZoneOffset.UTC) / SECONDS_PER_HOUR;
+    }
+}
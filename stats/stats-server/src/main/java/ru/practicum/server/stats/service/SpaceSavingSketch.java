@@ -0,0 +1,58 @@
+package ru.practicum.server.stats.service;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+// Алгоритм Space-Saving: не более capacity счётчиков, переоценка частоты не больше минимального счётчика
+public class SpaceSavingSketch {
+    private final int capacity;
+    private final Map<String, Counter> counters = new HashMap<>();
+    private final TreeSet<Counter> ordered = new TreeSet<>(Comparator
+            .comparingLong((Counter counter) -> counter.count)
+            .thenComparingLong(counter -> counter.sequence));
+    private long sequence;
+
+    public SpaceSavingSketch(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public synchronized void offer(String item) {
+        Counter counter = counters.get(item);
+        if (counter != null) {
+            ordered.remove(counter);
+            counter.count++;
+            ordered.add(counter);
+            return;
+        }
+
+        long count = 1;
+        if (counters.size() >= capacity) {
+            Counter min = ordered.pollFirst();
+            counters.remove(min.item);
+            count = min.count + 1;
+        }
+        counter = new Counter(item, count, sequence++);
+        counters.put(item, counter);
+        ordered.add(counter);
+    }
+
+    public synchronized void addTo(Map<String, Long> totals) {
+        for (Counter counter : counters.values()) {
+            totals.merge(counter.item, counter.count, Long::sum);
+        }
+    }
+
+    private static final class Counter {
+        private final String item;
+        private final long sequence;
+        private long count;
+
+        private Counter(String item, long count, long sequence) {
+            this.item = item;
+            this.count = count;
+            this.sequence = sequence;
+        }
+    }
+}
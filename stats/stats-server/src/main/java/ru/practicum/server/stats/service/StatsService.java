@@ -5,12 +5,19 @@ import ru.practicum.stats.dto.ViewStatsDto;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface StatsService {
 
     EndpointHitDto saveHit(EndpointHitDto endpointHitDto);
 
+    void saveHits(List<EndpointHitDto> hits);
+
     List<ViewStatsDto> getStats(LocalDateTime start, LocalDateTime end, List<String> uris);
 
     List<ViewStatsDto> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique);
+
+    List<ViewStatsDto> getTop(LocalDateTime start, LocalDateTime end, String app, int limit);
+
+    void exportHits(LocalDateTime start, LocalDateTime end, Consumer<EndpointHitDto> consumer);
 }
\ No newline at end of file
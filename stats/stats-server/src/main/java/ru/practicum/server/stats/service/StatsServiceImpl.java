@@ -1,38 +1,138 @@
 package ru.practicum.server.stats.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import ru.practicum.server.stats.exceptions.ValidationException;
 import ru.practicum.server.stats.mapper.StatsMapper;
 import ru.practicum.server.stats.model.App;
+import ru.practicum.server.stats.model.EndpointHit;
+import ru.practicum.server.stats.model.HitRow;
 import ru.practicum.server.stats.model.Uri;
 import ru.practicum.server.stats.repository.AppRepository;
+import ru.practicum.server.stats.repository.HitRollupRepository;
 import ru.practicum.server.stats.repository.StatsRepository;
 import ru.practicum.server.stats.repository.UriRepository;
 import ru.practicum.stats.dto.EndpointHitDto;
 import ru.practicum.stats.dto.ViewStatsDto;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class StatsServiceImpl implements StatsService {
+    private static final int MAX_TOP_LIMIT = 1000;
+    private static final int MAX_BATCH_SIZE = 10000;
 
     private final StatsRepository statsRepository;
     private final AppRepository appRepository;
     private final UriRepository uriRepository;
+    private final PopularUriTracker popularUriTracker;
+    private final HitCounter hitCounter;
+    private final HitRollupRepository hitRollupRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Optional<HitLog> hitLog;
 
-    @Transactional
+    // С включённым журналом хит подтверждается после записи на диск, в БД его переносит HitLogConsumer
     @Override
     public EndpointHitDto saveHit(EndpointHitDto endpointHitDto) {
+        validateHit(endpointHitDto);
+        if (hitLog.isPresent()) {
+            appendToLog(List.of(endpointHitDto));
+            return endpointHitDto;
+        }
+        return transactionTemplate.execute(status -> persistHit(endpointHitDto));
+    }
+
+    @Override
+    public void saveHits(List<EndpointHitDto> hits) {
+        if (hits.isEmpty() || hits.size() > MAX_BATCH_SIZE) {
+            throw new ValidationException("Размер пакета хитов должен быть от 1 до " + MAX_BATCH_SIZE);
+        }
+        hits.forEach(this::validateHit);
+        if (hitLog.isPresent()) {
+            appendToLog(hits);
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> persistHits(hits));
+    }
+
+    private void appendToLog(List<EndpointHitDto> hits) {
+        try {
+            hitLog.get().append(hits);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось записать хиты в журнал", e);
+        }
+    }
+
+    private void persistHits(List<EndpointHitDto> hits) {
+        Map<String, App> apps = new HashMap<>();
+        Map<String, Uri> uris = new HashMap<>();
+        List<EndpointHit> entities = hits.stream()
+                .map(hit -> StatsMapper.toEntity(hit,
+                        apps.computeIfAbsent(hit.getApp(), name -> getOrCreateApp(hit)),
+                        uris.computeIfAbsent(hit.getUri(), uri -> getOrCreateUri(hit))))
+                .toList();
+        statsRepository.saveAll(entities);
+        afterCommit(() -> {
+            for (EndpointHit hit : entities) {
+                hitCounter.increment(hit.getApp().getId(), hit.getUri().getId(),
+                        hit.getApp().getName(), hit.getUri().getUri(), hit.getTimestamp());
+                popularUriTracker.record(hit.getApp().getName(), hit.getUri().getUri(), hit.getTimestamp());
+            }
+        });
+    }
+
+    // Счётчики в памяти не должны учитывать хиты откатившейся транзакции
+    private void afterCommit(Runnable action) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    // Пакетные хиты не проходят через @Valid, поля проверяются здесь
+    private void validateHit(EndpointHitDto hit) {
+        if (hit == null || isBlank(hit.getApp()) || isBlank(hit.getUri()) || isBlank(hit.getIp())
+                || hit.getTimestamp() == null) {
+            throw new ValidationException("У хита должны быть заполнены app, uri, ip и timestamp");
+        }
+        StatsMapper.toInetAddress(hit.getIp());
+    }
+
+    private boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private EndpointHitDto persistHit(EndpointHitDto endpointHitDto) {
         // Получаем приложение или создаем новое
         App app = getOrCreateApp(endpointHitDto);
         // Получаем URI или создаем новый
         Uri uri = getOrCreateUri(endpointHitDto);
         // Преобразуем DTO в Entity и сохраняем
-        return StatsMapper.toDto(statsRepository.save(StatsMapper.toEntity(endpointHitDto, app, uri)));
+        EndpointHitDto saved = StatsMapper.toDto(statsRepository.save(StatsMapper.toEntity(endpointHitDto, app, uri)));
+        afterCommit(() -> {
+            hitCounter.increment(app.getId(), uri.getId(), saved.getApp(), saved.getUri(), saved.getTimestamp());
+            popularUriTracker.record(saved.getApp(), saved.getUri(), saved.getTimestamp());
+        });
+        return saved;
     }
 
     @Override
@@ -40,7 +140,7 @@ public class StatsServiceImpl implements StatsService {
         if (start.isAfter(end)) {
             throw new ValidationException("Дата начала не может быть позже даты окончания");
         }
-        return statsRepository.getStats(start, end, uris);
+        return getRolledUpStats(start, end, uris);
     }
 
     @Override
@@ -51,8 +151,72 @@ public class StatsServiceImpl implements StatsService {
         if (unique) {
             return statsRepository.getUniqueStats(start, end, uris);
         } else {
+            return getRolledUpStats(start, end, uris);
+        }
+    }
+
+    // Полные минуты берутся из hit_rollups и счётчиков в памяти, неполные крайние минуты - из сырых хитов
+    private List<ViewStatsDto> getRolledUpStats(LocalDateTime start, LocalDateTime end, List<String> uris) {
+        LocalDateTime from = HitCounter.toBucket(start);
+        if (from.isBefore(start)) {
+            from = from.plusMinutes(1);
+        }
+        LocalDateTime to = HitCounter.toBucket(end);
+        if (!from.isBefore(to)) {
             return statsRepository.getStats(start, end, uris);
         }
+        LocalDateTime fullFrom = from;
+        Set<String> uriFilter = uris == null ? null : new HashSet<>(uris);
+
+        Map<String, Map<String, Long>> totals = hitCounter.withConsistentView(() -> {
+            Map<String, Map<String, Long>> result = new HashMap<>();
+            hitRollupRepository.getStats(fullFrom, to, uris).forEach(stats -> addHits(result, stats));
+            hitCounter.forEachInFlight(fullFrom, to, (key, hits) -> {
+                if (uriFilter == null || uriFilter.contains(key.uri())) {
+                    addHits(result, new ViewStatsDto(key.app(), key.uri(), hits));
+                }
+            });
+            return result;
+        });
+        if (start.isBefore(fullFrom)) {
+            statsRepository.getStatsBefore(start, fullFrom, uris).forEach(stats -> addHits(totals, stats));
+        }
+        statsRepository.getStats(to, end, uris).forEach(stats -> addHits(totals, stats));
+
+        return totals.entrySet().stream()
+                .flatMap(app -> app.getValue().entrySet().stream()
+                        .map(uri -> new ViewStatsDto(app.getKey(), uri.getKey(), uri.getValue())))
+                .sorted(Comparator.comparing(ViewStatsDto::getHits).reversed())
+                .toList();
+    }
+
+    private void addHits(Map<String, Map<String, Long>> totals, ViewStatsDto stats) {
+        totals.computeIfAbsent(stats.getApp(), app -> new HashMap<>())
+                .merge(stats.getUri(), stats.getHits(), Long::sum);
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public List<ViewStatsDto> getTop(LocalDateTime start, LocalDateTime end, String app, int limit) {
+        if (start.isAfter(end)) {
+            throw new ValidationException("Дата начала не может быть позже даты окончания");
+        }
+        if (limit <= 0 || limit > MAX_TOP_LIMIT) {
+            throw new ValidationException("Размер выборки должен быть от 1 до " + MAX_TOP_LIMIT);
+        }
+        if (popularUriTracker.covers(start)) {
+            return popularUriTracker.top(app, start, end, limit);
+        }
+        // Окно начинается раньше, чем есть данные в памяти
+        return statsRepository.getTopStats(start, end, app, PageRequest.of(0, limit));
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public void exportHits(LocalDateTime start, LocalDateTime end, Consumer<EndpointHitDto> consumer) {
+        try (Stream<HitRow> hits = statsRepository.streamHits(start, end)) {
+            hits.map(StatsMapper::toDto).forEach(consumer);
+        }
     }
 
     private App getOrCreateApp(EndpointHitDto endpointHitDto) {
@@ -12,8 +12,59 @@ CREATE TABLE IF NOT EXISTS endpoint_hits (
     id BIGSERIAL PRIMARY KEY,
     app_id INT NOT NULL,
     uri_id INT NOT NULL,
-    ip VARCHAR(45) NOT NULL,
+    ip INET NOT NULL,
     timestamp TIMESTAMP NOT NULL,
     FOREIGN KEY (app_id) REFERENCES apps(id) ON DELETE CASCADE,
     FOREIGN KEY (uri_id) REFERENCES uris(id) ON DELETE CASCADE
 );
+CREATE INDEX IF NOT EXISTS idx_endpoint_hits_timestamp ON endpoint_hits(timestamp);
+
+-- Время записи хита в БД: timestamp задаёт клиент, и восстановление агрегатов после аварии
+-- находит несброшенные хиты по received_at. Для существующих строк значение одно на всех
+ALTER TABLE endpoint_hits ADD COLUMN IF NOT EXISTS received_at TIMESTAMP NOT NULL DEFAULT now();
+CREATE INDEX IF NOT EXISTS idx_endpoint_hits_received_at ON endpoint_hits USING BRIN (received_at);
+
+-- Перевод ip из VARCHAR в INET; строки, не являющиеся адресом, заменяются на 0.0.0.0.
+-- Для уже переведённого столбца оба оператора ничего не меняют и не читают таблицу
+UPDATE endpoint_hits SET ip = '0.0.0.0'
+WHERE EXISTS (SELECT 1 FROM information_schema.columns
+              WHERE table_name = 'endpoint_hits' AND column_name = 'ip' AND data_type = 'character varying')
+  AND NOT pg_input_is_valid(ip::text, 'inet');
+ALTER TABLE endpoint_hits ALTER COLUMN ip TYPE INET USING ip::inet;
+
+-- Поминутные агрегаты для неуникальной статистики
+CREATE TABLE IF NOT EXISTS hit_rollups (
+    app_id BIGINT NOT NULL REFERENCES apps(id) ON DELETE CASCADE,
+    uri_id BIGINT NOT NULL REFERENCES uris(id) ON DELETE CASCADE,
+    bucket TIMESTAMP NOT NULL,
+    hits BIGINT NOT NULL,
+    PRIMARY KEY (app_id, uri_id, bucket)
+);
+CREATE INDEX IF NOT EXISTS idx_hit_rollups_bucket ON hit_rollups(bucket);
+
+-- Однократное заполнение агрегатов по уже сохранённым хитам
+INSERT INTO hit_rollups (app_id, uri_id, bucket, hits)
+SELECT app_id, uri_id, date_trunc('minute', timestamp), COUNT(*)
+FROM endpoint_hits
+WHERE NOT EXISTS (SELECT 1 FROM hit_rollups)
+GROUP BY app_id, uri_id, date_trunc('minute', timestamp);
+
+-- Состояние счётчиков в памяти: после аварийной остановки пересчитываются минуты хитов, записанных после flushed_at
+CREATE TABLE IF NOT EXISTS hit_rollup_state (
+    id INT PRIMARY KEY,
+    flushed_at TIMESTAMP NOT NULL,
+    clean_shutdown BOOLEAN NOT NULL
+);
+INSERT INTO hit_rollup_state (id, flushed_at, clean_shutdown) VALUES (1, now(), TRUE) ON CONFLICT (id) DO NOTHING;
+
+-- Последовательность для пакетных вставок, шаг совпадает с allocationSize в EndpointHit
+CREATE SEQUENCE IF NOT EXISTS endpoint_hits_seq INCREMENT BY 50;
+SELECT setval('endpoint_hits_seq',
+    GREATEST((SELECT COALESCE(MAX(id), 0) FROM endpoint_hits), (SELECT last_value FROM endpoint_hits_seq)));
+
+-- Позиция, до которой журнал хитов перенесён в БД
+CREATE TABLE IF NOT EXISTS hit_log_checkpoints (
+    log_id VARCHAR(64) PRIMARY KEY,
+    segment BIGINT NOT NULL,
+    position BIGINT NOT NULL
+);
@@ -0,0 +1,79 @@
+package ru.practicum.server.stats.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import ru.practicum.stats.codec.HitCodec;
+import ru.practicum.stats.dto.EndpointHitDto;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Размер пакета хитов и время кодирования/разбора: JSON против application/x-ewm-hits
+@Slf4j
+@Tag("benchmark")
+class HitWireFormatBenchmarkTest {
+    private static final int HITS = 1000;
+    private static final int WARMUP_ROUNDS = 200;
+    private static final int MEASURED_ROUNDS = 200;
+    private static final TypeReference<List<EndpointHitDto>> HIT_LIST = new TypeReference<>() {
+    };
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+
+    @Test
+    void binaryFormatIsSmallerThanJson() throws Exception {
+        List<EndpointHitDto> hits = createHits();
+        byte[] json = objectMapper.writeValueAsBytes(hits);
+        byte[] binary = HitCodec.encode(hits);
+
+        assertThat(objectMapper.readValue(json, HIT_LIST)).isEqualTo(hits);
+        assertThat(HitCodec.decode(binary)).isEqualTo(hits);
+
+        long jsonNanos = measure(() -> objectMapper.readValue(objectMapper.writeValueAsBytes(hits), HIT_LIST));
+        long binaryNanos = measure(() -> HitCodec.decode(HitCodec.encode(hits)));
+        log.info("Пакет из {} хитов: JSON {} байт и {} нс на хит, двоичный {} байт и {} нс на хит",
+                HITS, json.length, jsonNanos / HITS, binary.length, binaryNanos / HITS);
+
+        assertThat(binary.length).isLessThan(json.length / 2);
+    }
+
+    // Среднее время кодирования и разбора одного пакета после прогрева
+    private static long measure(Action action) throws Exception {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            action.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            action.run();
+        }
+        return (System.nanoTime() - start) / MEASURED_ROUNDS;
+    }
+
+    private static List<EndpointHitDto> createHits() {
+        LocalDateTime start = LocalDateTime.of(2024, 6, 1, 12, 0);
+        List<EndpointHitDto> hits = new ArrayList<>(HITS);
+        for (int i = 0; i < HITS; i++) {
+            String ip = i % 4 == 0
+                    ? "2001:db8::" + Integer.toHexString(i)
+                    : "192.168." + (i / 256 % 256) + "." + (i % 256);
+            hits.add(EndpointHitDto.builder()
+                    .app("ewm-main-service")
+                    .uri("/events/" + (i % 100))
+                    .ip(ip)
+                    .timestamp(start.plusSeconds(i))
+                    .build());
+        }
+        return hits;
+    }
+
+    private interface Action {
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,125 @@
+package ru.practicum.server.stats.model;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.InetAddress;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Число обращений к БД при сохранении хитов с пакетной вставкой и без неё (H2 в режиме PostgreSQL)
+@Slf4j
+@Tag("benchmark")
+class EndpointHitBatchingBenchmarkTest {
+    private static final int HITS = 1000;
+    private static final int BATCH_SIZE = 50;
+
+    @Test
+    void batchingReducesRoundTrips() throws Exception {
+        Result unbatched = insertHits(0);
+        Result batched = insertHits(BATCH_SIZE);
+        log.info("Сохранение {} хитов: без пакетов {} обращений за {} мс, пакетами по {} - {} обращений за {} мс",
+                HITS, unbatched.roundTrips(), unbatched.millis(), BATCH_SIZE, batched.roundTrips(), batched.millis());
+
+        // Вставки и выборки из последовательности: N + N/50 против N/50 + N/50
+        assertThat(unbatched.roundTrips()).isGreaterThanOrEqualTo(HITS);
+        assertThat(batched.roundTrips()).isLessThanOrEqualTo(2 * HITS / BATCH_SIZE + 2);
+    }
+
+    private Result insertHits(int batchSize) throws Exception {
+        AtomicInteger roundTrips = new AtomicInteger();
+        EntityManagerFactory factory = createFactory(countingDataSource(batchSize, roundTrips), batchSize);
+        try {
+            EntityManager em = factory.createEntityManager();
+            em.getTransaction().begin();
+            App app = App.builder().name("ewm-main-service").build();
+            Uri uri = Uri.builder().uri("/events/1").build();
+            em.persist(app);
+            em.persist(uri);
+            em.flush();
+            InetAddress ip = InetAddress.getByName("192.168.0.1");
+            LocalDateTime now = LocalDateTime.now();
+
+            roundTrips.set(0);
+            long start = System.nanoTime();
+            for (int i = 0; i < HITS; i++) {
+                em.persist(EndpointHit.builder().app(app).uri(uri).ip(ip).timestamp(now).build());
+            }
+            em.getTransaction().commit();
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            em.close();
+            return new Result(roundTrips.get(), millis);
+        } finally {
+            factory.close();
+        }
+    }
+
+    private static EntityManagerFactory createFactory(DataSource dataSource, int batchSize) {
+        LocalContainerEntityManagerFactoryBean bean = new LocalContainerEntityManagerFactoryBean();
+        bean.setDataSource(dataSource);
+        bean.setPackagesToScan(EndpointHit.class.getPackageName());
+        bean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        bean.setJpaPropertyMap(Map.of(
+                "hibernate.hbm2ddl.auto", "create-drop",
+                "hibernate.jdbc.batch_size", String.valueOf(batchSize),
+                "hibernate.order_inserts", "true",
+                "hibernate.order_updates", "true"));
+        bean.afterPropertiesSet();
+        return bean.getObject();
+    }
+
+    // Считает выполненные на сервере команды: executeBatch - одно обращение на весь пакет
+    private static DataSource countingDataSource(int batchSize, AtomicInteger roundTrips) {
+        DataSource target = new DriverManagerDataSource(
+                "jdbc:h2:mem:hits" + batchSize + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1", "sa", "");
+        return proxy(DataSource.class, target, (method, result) -> result instanceof Connection connection
+                ? proxy(Connection.class, connection, (m, statement) -> statement instanceof Statement
+                        ? proxy(m.getReturnType(), statement, countingExecutions(roundTrips))
+                        : statement)
+                : result);
+    }
+
+    private static ResultWrapper countingExecutions(AtomicInteger roundTrips) {
+        return (method, result) -> {
+            if (method.getName().startsWith("execute")) {
+                roundTrips.incrementAndGet();
+            }
+            return result;
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<?> type, Object target, ResultWrapper wrapper) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            try {
+                return wrapper.wrap(method, method.invoke(target, args));
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        };
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private interface ResultWrapper {
+        Object wrap(Method method, Object result);
+    }
+
+    private record Result(int roundTrips, long millis) {
+    }
+}
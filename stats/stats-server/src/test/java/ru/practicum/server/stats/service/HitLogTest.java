@@ -0,0 +1,74 @@
+package ru.practicum.server.stats.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.practicum.server.stats.model.HitLogPosition;
+import ru.practicum.stats.dto.EndpointHitDto;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HitLogTest {
+    private static final long SEGMENT_BYTES = 1024 * 1024;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void appendedHitsAreReadBack() throws Exception {
+        HitLog hitLog = open();
+        hitLog.append(List.of(hit("/events/1"), hit("/events/2")));
+
+        HitLog.Batch batch = hitLog.read(hitLog.start(), 10);
+
+        assertThat(batch.hits()).extracting(EndpointHitDto::getUri).containsExactly("/events/1", "/events/2");
+        hitLog.close();
+    }
+
+    @Test
+    void reopenAfterTornTailWritesToNewSegment() throws Exception {
+        HitLog hitLog = open();
+        hitLog.append(List.of(hit("/events/1"), hit("/events/2")));
+        HitLogPosition checkpoint = hitLog.read(hitLog.start(), 10).next();
+        hitLog.close();
+        // Хвост, уже учтённый потребителем, потерян при падении
+        Path segment;
+        try (var files = Files.list(directory)) {
+            segment = files.findFirst().orElseThrow();
+        }
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(checkpoint.position() - 3);
+        }
+
+        hitLog = open();
+        hitLog.append(List.of(hit("/events/3")));
+
+        HitLog.Batch skipped = hitLog.read(checkpoint, 10);
+        assertThat(skipped.hits()).isEmpty();
+        assertThat(skipped.next()).isEqualTo(new HitLogPosition(checkpoint.segment() + 1, 0));
+        assertThat(hitLog.read(skipped.next(), 10).hits())
+                .extracting(EndpointHitDto::getUri).containsExactly("/events/3");
+        hitLog.close();
+    }
+
+    private HitLog open() throws Exception {
+        HitLog hitLog = new HitLog(directory.toString(), SEGMENT_BYTES);
+        hitLog.open();
+        return hitLog;
+    }
+
+    private static EndpointHitDto hit(String uri) {
+        return EndpointHitDto.builder()
+                .app("ewm-main-service")
+                .uri(uri)
+                .ip("192.168.0.1")
+                .timestamp(LocalDateTime.of(2024, 6, 1, 12, 0))
+                .build();
+    }
+}